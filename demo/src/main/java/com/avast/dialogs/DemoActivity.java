@@ -18,11 +18,6 @@ package com.avast.dialogs;
 
 import android.content.Intent;
 import android.content.res.TypedArray;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
@@ -36,6 +31,7 @@ import android.view.ViewGroup;
 import android.widget.AbsListView;
 import android.widget.Toast;
 
+import com.avast.android.dialogs.core.StyledDialogs;
 import com.avast.android.dialogs.fragment.DatePickerDialogFragment;
 import com.avast.android.dialogs.fragment.ListDialogFragment;
 import com.avast.android.dialogs.fragment.ProgressDialogFragment;
@@ -47,7 +43,6 @@ import com.avast.android.dialogs.iface.IListDialogListener;
 import com.avast.android.dialogs.iface.IMultiChoiceListDialogListener;
 import com.avast.android.dialogs.iface.ISimpleDialogCancelListener;
 import com.avast.android.dialogs.iface.ISimpleDialogListener;
-import com.avast.android.dialogs.util.TypefaceHelper;
 
 import java.text.DateFormat;
 import java.util.Date;
@@ -78,18 +73,16 @@ public class DemoActivity extends AppCompatActivity implements
         setContentView(R.layout.main);
         getSupportActionBar().setDisplayShowHomeEnabled(true);
         getSupportActionBar().setIcon(R.drawable.img_avast_logo_small);
-
-        final Bitmap iconVector = drawableToBitmap(getResources().getDrawable(R.drawable.ic_info_vector));
-        final Bitmap iconRaster = BitmapFactory.decodeResource(getResources(), R.drawable.ic_info_raster);
+        StyledDialogs.prewarm(this, 2);
 
         findViewById(R.id.message_dialog).setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 SimpleDialogFragment.createBuilder(c, getSupportFragmentManager())
                         .setTitle("Title")
-                        .setIcon(iconRaster)
-                        .setFontRegular(TypefaceHelper.get(DemoActivity.this, "AmaticSC-Regular"))
-                        .setFontMedium(TypefaceHelper.get(DemoActivity.this, "AmaticSC-Bold"))
+                        .setIcon(R.drawable.ic_info_raster)
+                        .setFontRegular("AmaticSC-Regular")
+                        .setFontMedium("AmaticSC-Bold")
                         .setMessage("Love. Can know all the math in the \'verse but take a boat in the air that you don\'t " +
                                 "love? She\'ll shake you off just as sure as a turn in the worlds. Love keeps her in the air when " +
                                 "she oughtta fall down...tell you she\'s hurtin\' \'fore she keens...makes her a home.")
@@ -104,7 +97,7 @@ public class DemoActivity extends AppCompatActivity implements
 
                  final SimpleDialogFragment dialog = (SimpleDialogFragment) SimpleDialogFragment.createBuilder(c, getSupportFragmentManager())
                          .setTitle("More Firefly quotes:")
-                         .setIcon(iconRaster)
+                         .setIcon(R.drawable.ic_info_raster)
                          .setNegativeButtonText("Close")
                          .setPositiveButtonText("Open")
                          .setNeutralButtonText("Leave it")
@@ -152,7 +145,7 @@ public class DemoActivity extends AppCompatActivity implements
                                 .setPositiveButtonText("Love")
                                 .setNegativeButtonText("Hate")
                                 .setNeutralButtonText("WTF?")
-                                .setIcon(iconRaster)
+                                .setIcon(R.drawable.ic_info_raster)
                                 .setRequestCode(REQUEST_SIMPLE_DIALOG)
                                 .show();
                     }
@@ -171,7 +164,7 @@ public class DemoActivity extends AppCompatActivity implements
                 final ProgressDialogFragment dialog = (ProgressDialogFragment) ProgressDialogFragment.createBuilder(c, getSupportFragmentManager())
                         .setMessage("Mal: I\'m just waiting to see if I pass out. Long story.")
                         .setTitle("title")
-                        .setIcon(iconRaster)
+                        .setIcon(R.drawable.ic_info_raster)
                         .setRequestCode(REQUEST_PROGRESS)
                         .show();
 
@@ -196,7 +189,7 @@ public class DemoActivity extends AppCompatActivity implements
                         .setTitle("Your favorite character:")
                         .setItems(new String[]{"Jayne", "Malcolm", "Kaylee",
                                 "Wash", "Zoe", "River"})
-                        .setIcon(iconRaster)
+                        .setIcon(R.drawable.ic_info_raster)
                         .setRequestCode(REQUEST_LIST_SIMPLE)
                         .show();
 
@@ -210,7 +203,7 @@ public class DemoActivity extends AppCompatActivity implements
                         .setTitle("Your favorite character:")
                         .setItems(new String[]{"Jayne", "Malcolm", "Kaylee",
                                 "Wash", "Zoe", "River"})
-                        .setIcon(iconRaster)
+                        .setIcon(R.drawable.ic_info_raster)
                         .setRequestCode(REQUEST_LIST_SINGLE)
                         .setChoiceMode(AbsListView.CHOICE_MODE_SINGLE)
                         .show();
@@ -225,7 +218,7 @@ public class DemoActivity extends AppCompatActivity implements
                         .setTitle("Your favorite character:")
                         .setItems(new String[]{"Jayne", "Malcolm", "Kaylee",
                                 "Wash", "Zoe", "River"})
-                        .setIcon(iconRaster)
+                        .setIcon(R.drawable.ic_info_raster)
                         .setRequestCode(REQUEST_LIST_MULTIPLE)
                         .setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE)
                         .setCheckedItems(new int[]{1, 3})
@@ -431,22 +424,4 @@ public class DemoActivity extends AppCompatActivity implements
         }
         return darkTheme;
     }
-
-    private Bitmap drawableToBitmap (Drawable drawable)
-    {
-        if (drawable instanceof BitmapDrawable) {
-            return ((BitmapDrawable)drawable).getBitmap();
-        }
-
-        Bitmap bitmap = Bitmap.createBitmap(
-                drawable.getIntrinsicWidth(),
-                drawable.getIntrinsicHeight(),
-                Bitmap.Config.ARGB_8888);
-
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        drawable.draw(canvas);
-
-        return bitmap;
-    }
 }
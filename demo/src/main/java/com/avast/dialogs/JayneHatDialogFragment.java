@@ -24,6 +24,8 @@ import com.avast.android.dialogs.core.BaseDialogFragment;
 import com.avast.android.dialogs.fragment.SimpleDialogFragment;
 import com.avast.android.dialogs.iface.IPositiveButtonDialogListener;
 
+import java.util.List;
+
 /**
  * Sample implementation of custom dialog by extending {@link SimpleDialogFragment}.
  *
@@ -50,8 +52,9 @@ public class JayneHatDialogFragment extends SimpleDialogFragment {
         builder.setPositiveButton("I want one", new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                for (IPositiveButtonDialogListener listener : getPositiveButtonDialogListeners()) {
-                    listener.onPositiveButtonClicked(mRequestCode);
+                final List<IPositiveButtonDialogListener> listeners = getPositiveButtonDialogListeners();
+                for (int i = 0, n = listeners.size(); i < n; i++) {
+                    listeners.get(i).onPositiveButtonClicked(mRequestCode);
                 }
                 dismiss();
             }
@@ -0,0 +1,118 @@
+package com.avast.android.dialogs.core;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.filters.LargeTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.view.LayoutInflaterCompat;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.avast.android.dialogs.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Compares inflation of {@code R.layout.sdl_dialog} with building the same tree by {@link DialogLayoutFactory}.
+ * Medians are logged and reported in the instrumentation status, e.g. by
+ * {@code ./gradlew :library:connectedAndroidTest}.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class DialogInflationBenchmark {
+
+    private static final String TAG = "DialogInflationBenchmark";
+    private static final int WARMUP_RUNS = 20;
+    private static final int RUNS = 200;
+
+    private Context mContext;
+    private LayoutInflater mInflater;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(), R.style.Theme_AppCompat_Light);
+        mContext.getTheme().applyStyle(R.style.SDL_Dialog, true);
+        // the same widgets as inflated by an AppCompatActivity
+        mInflater = LayoutInflater.from(mContext).cloneInContext(mContext);
+        LayoutInflaterCompat.setFactory2(mInflater, new AppCompatWidgetFactory());
+    }
+
+    @Test
+    @UiThreadTest
+    public void codeBuildsTheSameTree() {
+        final SparseArray<Class<?>> inflated = new SparseArray<>();
+        collectViews(mInflater.inflate(R.layout.sdl_dialog, null, false), inflated);
+        final SparseArray<Class<?>> built = new SparseArray<>();
+        collectViews(DialogLayoutFactory.createDialogView(mContext, R.style.SDL_Dialog), built);
+
+        assertEquals(inflated.size(), built.size());
+        for (int i = 0; i < inflated.size(); i++) {
+            final int id = inflated.keyAt(i);
+            final String name = mContext.getResources().getResourceEntryName(id);
+            assertNotNull("Missing " + name, built.get(id));
+            assertEquals("Different view " + name, inflated.valueAt(i), built.get(id));
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void xmlVersusCode() {
+        final long xml = median(new Runnable() {
+            @Override
+            public void run() {
+                mInflater.inflate(R.layout.sdl_dialog, null, false);
+            }
+        });
+        final long code = median(new Runnable() {
+            @Override
+            public void run() {
+                DialogLayoutFactory.createDialogView(mContext, R.style.SDL_Dialog);
+            }
+        });
+
+        Log.i(TAG, "sdl_dialog median: xml " + xml / 1000 + " us, code " + code / 1000 + " us");
+        final Bundle results = new Bundle();
+        results.putLong("xml_median_ns", xml);
+        results.putLong("code_median_ns", code);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    private static long median(Runnable task) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            task.run();
+        }
+        final long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            final long start = System.nanoTime();
+            task.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static void collectViews(View view, SparseArray<Class<?>> views) {
+        if (view.getId() != View.NO_ID) {
+            views.put(view.getId(), view.getClass());
+        }
+        if (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0, n = group.getChildCount(); i < n; i++) {
+                collectViews(group.getChildAt(i), views);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.avast.android.dialogs.util;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.filters.LargeTest;
+import android.support.test.filters.SdkSuppress;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ListView;
+
+import com.avast.android.dialogs.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts allocations on the main thread while list rows are bound, see {@link ListItemAdapter.ViewHolder} and
+ * {@link CheckableLinearLayout#onCreateDrawableState(int)}.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+@SuppressWarnings("deprecation")
+public class ListItemAllocationTest {
+
+    private static final String TAG = "ListItemAllocationTest";
+    private static final int ROWS = 10000;
+    private static final int WARMUP_ROWS = 200;
+    // text layouts of the newly bound rows are created by the framework, the rest of a row must not allocate
+    private static final int MAX_ALLOCATIONS_PER_ROW = 8;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(), R.style.Theme_AppCompat_Light);
+        mContext.getTheme().applyStyle(R.style.SDL_Dialog, true);
+    }
+
+    @After
+    public void tearDown() {
+        Debug.stopAllocCounting();
+    }
+
+    @Test
+    @UiThreadTest
+    @SdkSuppress(minSdkVersion = 19)
+    public void scrollingTenThousandRows() {
+        final CharSequence[] items = new CharSequence[ROWS];
+        final CheckedItemSet checkedItems = new CheckedItemSet();
+        for (int i = 0; i < ROWS; i++) {
+            items[i] = "Item " + i;
+            checkedItems.set(i, i % 3 == 0);
+        }
+        final ListItemAdapter adapter = new ListItemAdapter(items, R.layout.sdl_list_item_multichoice, null);
+        adapter.setCheckedItems(checkedItems);
+        final ListView list = new ListView(mContext);
+        list.setAdapter(adapter);
+        list.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(800, View.MeasureSpec.EXACTLY));
+        list.layout(0, 0, list.getMeasuredWidth(), list.getMeasuredHeight());
+        final int rowHeight = list.getChildAt(0).getHeight();
+
+        // the first rows create the recycled views
+        scrollTo(list, rowHeight, WARMUP_ROWS);
+        final int firstRow = list.getLastVisiblePosition();
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        scrollTo(list, rowHeight, ROWS - 1);
+        Debug.stopAllocCounting();
+        final int allocations = Debug.getThreadAllocCount();
+
+        final int rows = list.getLastVisiblePosition() - firstRow;
+        assertEquals(ROWS - 1, list.getLastVisiblePosition());
+        report("scroll_allocations", allocations, rows);
+        assertTrue(allocations + " allocations for " + rows + " rows",
+                allocations <= rows * MAX_ALLOCATIONS_PER_ROW);
+    }
+
+    @Test
+    @UiThreadTest
+    public void checkedRowReusesDrawableState() {
+        final FrameLayout parent = new FrameLayout(mContext);
+        final CheckableLinearLayout row = (CheckableLinearLayout) LayoutInflater.from(mContext)
+                .inflate(R.layout.sdl_list_item_multichoice, parent, false);
+        row.setChecked(true);
+        row.refreshDrawableState();
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ROWS; i++) {
+            row.refreshDrawableState();
+        }
+        Debug.stopAllocCounting();
+        final int allocations = Debug.getThreadAllocCount();
+
+        report("drawable_state_allocations", allocations, ROWS);
+        // a few allocations of the counting itself are tolerated, not one per refresh
+        assertTrue(allocations + " allocations for " + ROWS + " refreshes", allocations < ROWS / 100);
+    }
+
+    private static void scrollTo(ListView list, int rowHeight, int lastPosition) {
+        while (list.getLastVisiblePosition() < lastPosition) {
+            list.scrollListBy(rowHeight);
+        }
+    }
+
+    private static void report(String key, int allocations, int rows) {
+        Log.i(TAG, key + ": " + allocations + " for " + rows);
+        final Bundle results = new Bundle();
+        results.putInt(key, allocations);
+        results.putInt(key + "_rows", rows);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+}
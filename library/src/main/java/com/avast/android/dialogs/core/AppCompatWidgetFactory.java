@@ -0,0 +1,46 @@
+package com.avast.android.dialogs.core;
+
+import android.content.Context;
+import android.support.v7.widget.AppCompatButton;
+import android.support.v7.widget.AppCompatCheckBox;
+import android.support.v7.widget.AppCompatEditText;
+import android.support.v7.widget.AppCompatImageView;
+import android.support.v7.widget.AppCompatRadioButton;
+import android.support.v7.widget.AppCompatTextView;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+
+/**
+ * Creates AppCompat versions of the framework widgets used by the dialog layouts, the same way the factory of an
+ * {@code AppCompatActivity} does. Used by inflaters which don't belong to an Activity, e.g. the one inflating
+ * skeletons for {@link StyledDialogs#prewarm(Context, int)}.
+ */
+final class AppCompatWidgetFactory implements LayoutInflater.Factory2 {
+
+    @Override
+    public View onCreateView(View parent, String name, Context context, AttributeSet attrs) {
+        return onCreateView(name, context, attrs);
+    }
+
+    @Override
+    public View onCreateView(String name, Context context, AttributeSet attrs) {
+        // only the widgets of the dialog layouts, anything else is left to the inflater
+        switch (name) {
+            case "TextView":
+                return new AppCompatTextView(context, attrs);
+            case "Button":
+                return new AppCompatButton(context, attrs);
+            case "EditText":
+                return new AppCompatEditText(context, attrs);
+            case "ImageView":
+                return new AppCompatImageView(context, attrs);
+            case "CheckBox":
+                return new AppCompatCheckBox(context, attrs);
+            case "RadioButton":
+                return new AppCompatRadioButton(context, attrs);
+            default:
+                return null;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.avast.android.dialogs.core;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Typeface;
+import android.net.Uri;
 import android.os.Bundle;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.FontRes;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 
+import java.io.File;
+
 
 /**
  * Internal base builder that holds common values for all dialog fragment builders.
@@ -23,6 +30,15 @@ public abstract class BaseDialogBuilder<T extends BaseDialogBuilder<T>> {
     public static String ARG_USE_DARK_THEME = "usedarktheme";
     public static String ARG_USE_LIGHT_THEME = "uselighttheme";
     public static String ARG_USE_STACKED_BUTTONS = "usestackedbuttons";
+    public final static String ARG_FULL_WIDTH = "full_width";
+    public final static String ARG_FULL_HEIGHT = "full_height";
+    public final static String ARG_FONT_REGULAR_ASSET = "font_regular_asset";
+    public final static String ARG_FONT_REGULAR_RES = "font_regular_res";
+    public final static String ARG_FONT_MEDIUM_ASSET = "font_medium_asset";
+    public final static String ARG_FONT_MEDIUM_RES = "font_medium_res";
+    public final static String ARG_ICON_RES = "icon_res";
+    public final static String ARG_ICON_URI = "icon_uri";
+    public final static String ARG_TINT_ICON = "tint_icon";
     protected final Context mContext;
     protected final FragmentManager mFragmentManager;
     protected final Class<? extends BaseDialogFragment> mClass;
@@ -32,6 +48,22 @@ public abstract class BaseDialogBuilder<T extends BaseDialogBuilder<T>> {
     private boolean mUseDarkTheme = false;
     private boolean mUseLightTheme = false;
     private boolean mUseStackedButtons = false;
+    private boolean mFullWidth = false;
+    private boolean mFullHeight = false;
+    private String mFontRegularAsset;
+    @FontRes
+    private int mFontRegularRes;
+    private String mFontMediumAsset;
+    @FontRes
+    private int mFontMediumRes;
+    @DrawableRes
+    private int mIconRes;
+    private Uri mIconUri;
+    // objects of the deprecated setters, they can't be put to the arguments
+    private Typeface mInstanceFontRegular;
+    private Typeface mInstanceFontMedium;
+    private Bitmap mInstanceIcon;
+    private boolean mTintIcon;
 
     public BaseDialogBuilder(Context context, FragmentManager fragmentManager, Class<? extends BaseDialogFragment> clazz) {
         mFragmentManager = fragmentManager;
@@ -87,10 +119,143 @@ public abstract class BaseDialogBuilder<T extends BaseDialogBuilder<T>> {
         return self();
     }
 
+    /**
+     * Dialog window fills the whole width of the screen. The size is set to the window before it's shown, so the
+     * dialog is laid out only once.
+     */
+    public T setFullWidth(boolean set) {
+        mFullWidth = set;
+        return self();
+    }
+
+    /**
+     * Dialog window fills the whole height of the screen, buttons stick to the bottom.
+     */
+    public T setFullHeight(boolean set) {
+        mFullHeight = set;
+        return self();
+    }
+
+    /**
+     * Font of the message and list items. Fonts are passed to the dialog by name, so they survive recreation of the
+     * dialog and don't leak.
+     *
+     * @param assetName Name of the font file in {@code assets/fonts} without the {@code .ttf} extension
+     * @since 2.4.0
+     */
+    public T setFontRegular(String assetName) {
+        mFontRegularAsset = assetName;
+        mFontRegularRes = 0;
+        return self();
+    }
+
+    /**
+     * @param fontRes Font resource, e.g. {@code R.font.roboto}
+     * @since 2.4.0
+     */
+    public T setFontRegular(@FontRes int fontRes) {
+        mFontRegularRes = fontRes;
+        mFontRegularAsset = null;
+        return self();
+    }
+
+    /**
+     * Font of the title and buttons.
+     *
+     * @param assetName Name of the font file in {@code assets/fonts} without the {@code .ttf} extension
+     * @since 2.4.0
+     */
+    public T setFontMedium(String assetName) {
+        mFontMediumAsset = assetName;
+        mFontMediumRes = 0;
+        return self();
+    }
+
+    /**
+     * @param fontRes Font resource, e.g. {@code R.font.roboto_medium}
+     * @since 2.4.0
+     */
+    public T setFontMedium(@FontRes int fontRes) {
+        mFontMediumRes = fontRes;
+        mFontMediumAsset = null;
+        return self();
+    }
+
+    /**
+     * Icon shown next to the title. It's loaded in the background and scaled to the height of the title.
+     *
+     * @param iconRes Bitmap or vector drawable
+     * @since 2.4.0
+     */
+    public T setIcon(@DrawableRes int iconRes) {
+        mIconRes = iconRes;
+        mIconUri = null;
+        return self();
+    }
+
+    /**
+     * @param iconUri Uri of the icon which can be opened by {@link android.content.ContentResolver}
+     * @since 2.4.0
+     */
+    public T setIcon(Uri iconUri) {
+        mIconUri = iconUri;
+        mIconRes = 0;
+        return self();
+    }
+
+    /**
+     * @since 2.4.0
+     */
+    public T setIcon(File iconFile) {
+        return setIcon(Uri.fromFile(iconFile));
+    }
+
+    /**
+     * @param assetPath Path of the icon in assets, e.g. {@code icons/info.png}
+     * @since 2.4.0
+     */
+    public T setIconAsset(String assetPath) {
+        return setIcon(Uri.parse("file:///android_asset/" + assetPath));
+    }
+
+    /**
+     * Icon is tinted with the primary text color of the dialog, so a single monochrome icon fits both light and dark
+     * dialogs.
+     *
+     * @since 2.4.0
+     */
+    public T setTintIcon(boolean tint) {
+        mTintIcon = tint;
+        return self();
+    }
+
+    /**
+     * Font kept only by the created instance of the dialog, for the deprecated setters of the builders. It's lost
+     * when the dialog is recreated, e.g. after a configuration change or process death.
+     */
+    protected void setInstanceFontRegular(Typeface font) {
+        mInstanceFontRegular = font;
+    }
+
+    /**
+     * @see #setInstanceFontRegular(Typeface)
+     */
+    protected void setInstanceFontMedium(Typeface font) {
+        mInstanceFontMedium = font;
+    }
+
+    /**
+     * Icon kept only by the created instance of the dialog, see {@link #setInstanceFontRegular(Typeface)}.
+     */
+    protected void setInstanceIcon(Bitmap icon) {
+        mInstanceIcon = icon;
+    }
+
     private BaseDialogFragment create() {
         final Bundle args = prepareArguments();
 
         final BaseDialogFragment fragment = (BaseDialogFragment) Fragment.instantiate(mContext, mClass.getName(), args);
+        fragment.setInstanceStyle(mInstanceFontRegular, mInstanceFontMedium, mInstanceIcon);
 
         args.putBoolean(ARG_CANCELABLE_ON_TOUCH_OUTSIDE, mCancelableOnTouchOutside);
 
@@ -100,6 +265,19 @@ public abstract class BaseDialogBuilder<T extends BaseDialogBuilder<T>> {
 
         args.putBoolean(ARG_USE_STACKED_BUTTONS, mUseStackedButtons);
 
+        args.putBoolean(ARG_FULL_WIDTH, mFullWidth);
+
+        args.putBoolean(ARG_FULL_HEIGHT, mFullHeight);
+
+        args.putString(ARG_FONT_REGULAR_ASSET, mFontRegularAsset);
+        args.putInt(ARG_FONT_REGULAR_RES, mFontRegularRes);
+        args.putString(ARG_FONT_MEDIUM_ASSET, mFontMediumAsset);
+        args.putInt(ARG_FONT_MEDIUM_RES, mFontMediumRes);
+
+        args.putInt(ARG_ICON_RES, mIconRes);
+        args.putParcelable(ARG_ICON_URI, mIconUri);
+        args.putBoolean(ARG_TINT_ICON, mTintIcon);
+
         if (mTargetFragment != null) {
             fragment.setTargetFragment(mTargetFragment, mRequestCode);
         } else {
@@ -19,37 +19,40 @@ package com.avast.android.dialogs.core;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Typeface;
 import android.graphics.drawable.BitmapDrawable;
-import android.os.Build;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.Bundle;
+import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.StyleRes;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentTransaction;
+import android.support.v4.util.SimpleArrayMap;
 import android.text.TextUtils;
-import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
+import android.view.ViewStub;
+import android.view.Window;
+import android.view.WindowManager;
 import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.Button;
 import android.widget.FrameLayout;
-import android.widget.LinearLayout;
 import android.widget.ListAdapter;
 import android.widget.ListView;
-import android.widget.ScrollView;
 import android.widget.TextView;
 
 import com.avast.android.dialogs.R;
 import com.avast.android.dialogs.iface.IDialogCompletelyDrawnListener;
 import com.avast.android.dialogs.iface.ISimpleDialogCancelListener;
+import com.avast.android.dialogs.util.IconLoader;
+import com.avast.android.dialogs.util.StyledDialogLayout;
 import com.avast.android.dialogs.util.TypefaceHelper;
 
 import java.util.ArrayList;
@@ -66,6 +69,16 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
     protected int mRequestCode;
     protected boolean mForceStackedButtons;
     protected Builder builder;
+    @StyleRes
+    private int mDialogTheme;
+    // objects which can listen to this dialog and listeners resolved from them per interface
+    private final SimpleArrayMap<Class<?>, List<?>> mDialogListeners = new SimpleArrayMap<>();
+    private Object[] mListenerCandidates;
+    private Fragment mListenerTarget;
+    // set by the deprecated setters of the builders, lost when the dialog is recreated
+    private Typeface mInstanceFontRegular;
+    private Typeface mInstanceFontMedium;
+    private Bitmap mInstanceIcon;
 
     protected final static String CONTENT = "content";
     protected final static String TITLE = "title";
@@ -83,21 +96,59 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
         int theme = resolveTheme();
+        mDialogTheme = theme;
         Dialog dialog = new Dialog(getActivity(), theme);
 
         Bundle args = getArguments();
         if (args != null) {
             dialog.setCanceledOnTouchOutside(args.getBoolean(BaseDialogBuilder.ARG_CANCELABLE_ON_TOUCH_OUTSIDE));
             mForceStackedButtons = args.getBoolean(BaseDialogBuilder.ARG_USE_STACKED_BUTTONS, false);
+            setWindowSize(dialog, args.getBoolean(BaseDialogBuilder.ARG_FULL_WIDTH),
+                    args.getBoolean(BaseDialogBuilder.ARG_FULL_HEIGHT));
         }
         dialog.setOnShowListener(this);
         return dialog;
     }
 
+    @Override
+    public void onAttach(Context context) {
+        super.onAttach(context);
+        clearDialogListeners();
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        clearDialogListeners();
+    }
+
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
         builder = new Builder(getActivity(), inflater, container);
+        // values from arguments first, so build() can override them
+        final Typeface fontRegular = getFontRegular();
+        if (fontRegular != null) {
+            builder.setFontRegular(fontRegular);
+        }
+        final Typeface fontMedium = getFontMedium();
+        if (fontMedium != null) {
+            builder.setFontMedium(fontMedium);
+        }
+        final Bundle args = getArguments();
+        if (args != null) {
+            final int iconRes = args.getInt(BaseDialogBuilder.ARG_ICON_RES);
+            final Uri iconUri = args.getParcelable(BaseDialogBuilder.ARG_ICON_URI);
+            if (iconRes != 0) {
+                builder.setIcon(iconRes);
+            } else if (iconUri != null) {
+                builder.setIcon(iconUri);
+            }
+            builder.setTintIcon(args.getBoolean(BaseDialogBuilder.ARG_TINT_ICON));
+        }
+        if (mInstanceIcon != null) {
+            builder.setIcon(mInstanceIcon);
+        }
         return build(builder).create();
     }
 
@@ -115,6 +166,10 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         }
     }
 
+    /**
+     * Optional parts of the dialog (custom view, list and stacked buttons) are inflated only when the dialog uses
+     * them, null is returned for the parts which are not used.
+     */
     public View getDialogView(String stringIdentifier) {
 
         if (builder == null)
@@ -148,6 +203,59 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         }
     }
 
+    /**
+     * @return Font of the message set by the dialog builder or null for the default one
+     * @since 2.4.0
+     */
+    public Typeface getFontRegular() {
+        if (mInstanceFontRegular != null) {
+            return mInstanceFontRegular;
+        }
+        return getFont(BaseDialogBuilder.ARG_FONT_REGULAR_ASSET, BaseDialogBuilder.ARG_FONT_REGULAR_RES);
+    }
+
+    /**
+     * @return Font of the title and buttons set by the dialog builder or null for the default one
+     * @since 2.4.0
+     */
+    public Typeface getFontMedium() {
+        if (mInstanceFontMedium != null) {
+            return mInstanceFontMedium;
+        }
+        return getFont(BaseDialogBuilder.ARG_FONT_MEDIUM_ASSET, BaseDialogBuilder.ARG_FONT_MEDIUM_RES);
+    }
+
+    /**
+     * @return Icon set by a deprecated {@code setIcon(Bitmap)} of the builder, null if the icon was set otherwise
+     * @deprecated The bitmap is kept only by this instance of the dialog, set the icon by a resource or Uri
+     */
+    @Deprecated
+    public Bitmap getIcon() {
+        return mInstanceIcon;
+    }
+
+    /**
+     * Fonts and icon of the deprecated setters of the builders, they are not saved with the arguments.
+     */
+    void setInstanceStyle(Typeface fontRegular, Typeface fontMedium, Bitmap icon) {
+        mInstanceFontRegular = fontRegular;
+        mInstanceFontMedium = fontMedium;
+        mInstanceIcon = icon;
+    }
+
+    private Typeface getFont(String assetKey, String resKey) {
+        final Bundle args = getArguments();
+        if (args == null || getActivity() == null) {
+            return null;
+        }
+        final String asset = args.getString(assetKey);
+        if (asset != null) {
+            return TypefaceHelper.get(getActivity(), asset);
+        }
+        final int fontRes = args.getInt(resKey);
+        return fontRes != 0 ? TypefaceHelper.get(getActivity(), fontRes) : null;
+    }
+
     /**
      * Key method for using {@link com.avast.android.dialogs.core.BaseDialogFragment}.
      * Customized dialogs need to be set up via provided builder.
@@ -159,6 +267,9 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
 
     @Override
     public void onDestroyView() {
+        if (builder != null) {
+            builder.releaseIcon();
+        }
         // bug in the compatibility library
         if (getDialog() != null && getRetainInstance()) {
             getDialog().setDismissMessage(null);
@@ -174,24 +285,11 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
 
     @Override
     public void onShow(DialogInterface dialog) {
+        // divider above buttons is handled by StyledDialogLayout during layout
         if (getView() != null) {
-            ScrollView vMessageScrollView = (ScrollView) getView().findViewById(R.id.sdl_message_scrollview);
-            ListView vListView = (ListView) getView().findViewById(R.id.sdl_list);
-            FrameLayout vCustomViewNoScrollView = (FrameLayout) getView().findViewById(R.id.sdl_custom);
-            boolean customViewNoScrollViewScrollable = false;
-            if (vCustomViewNoScrollView.getChildCount() > 0) {
-                View firstChild = vCustomViewNoScrollView.getChildAt(0);
-                if (firstChild instanceof ViewGroup) {
-                    customViewNoScrollViewScrollable = isScrollable((ViewGroup) firstChild);
-                }
-            }
-            boolean listViewScrollable = isScrollable(vListView);
-            boolean messageScrollable = isScrollable(vMessageScrollView);
-            boolean scrollable = listViewScrollable || messageScrollable || customViewNoScrollViewScrollable;
-            modifyButtonsBasedOnScrollableContent(scrollable);
-
-            for (IDialogCompletelyDrawnListener listener : getDialogListeners(IDialogCompletelyDrawnListener.class)) {
-                listener.onDialogCompletelyDrawn(mRequestCode);
+            final List<IDialogCompletelyDrawnListener> listeners = getDialogListeners(IDialogCompletelyDrawnListener.class);
+            for (int i = 0, n = listeners.size(); i < n; i++) {
+                listeners.get(i).onDialogCompletelyDrawn(mRequestCode);
             }
         }
     }
@@ -199,8 +297,9 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
     @Override
     public void onCancel(DialogInterface dialog) {
         super.onCancel(dialog);
-        for (ISimpleDialogCancelListener listener : getCancelListeners()) {
-            listener.onCancelled(mRequestCode);
+        final List<ISimpleDialogCancelListener> listeners = getCancelListeners();
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onCancelled(mRequestCode);
         }
     }
 
@@ -216,7 +315,9 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
     }
 
     /**
-     * Utility method for acquiring all listeners of some type for current instance of DialogFragment
+     * Utility method for acquiring all listeners of some type for current instance of DialogFragment.
+     * Listeners are the target fragment, parent fragments and the activity. They are resolved once per interface
+     * while the fragment is attached, iterate the returned list by index to avoid allocations.
      *
      * @param listenerInterface Interface of the desired listeners
      * @return Unmodifiable list of listeners
@@ -224,47 +325,60 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
      */
     @SuppressWarnings("unchecked")
     protected <T> List<T> getDialogListeners(Class<T> listenerInterface) {
-        final Fragment targetFragment = getTargetFragment();
-        List<T> listeners = new ArrayList<T>(2);
-        if (targetFragment != null && listenerInterface.isAssignableFrom(targetFragment.getClass())) {
-            listeners.add((T) targetFragment);
-        }
-        if (getActivity() != null && listenerInterface.isAssignableFrom(getActivity().getClass())) {
-            listeners.add((T) getActivity());
+        if (mListenerCandidates == null || mListenerTarget != getTargetFragment()) {
+            resolveListenerCandidates();
+        }
+        List<T> listeners = (List<T>) mDialogListeners.get(listenerInterface);
+        if (listeners == null) {
+            final List<T> matching = new ArrayList<T>(mListenerCandidates.length);
+            for (Object candidate : mListenerCandidates) {
+                if (listenerInterface.isInstance(candidate)) {
+                    matching.add((T) candidate);
+                }
+            }
+            listeners = Collections.unmodifiableList(matching);
+            mDialogListeners.put(listenerInterface, listeners);
         }
-        return Collections.unmodifiableList(listeners);
+        return listeners;
     }
 
-    /**
-     * Button divider should be shown only if the content is scrollable.
-     */
-    private void modifyButtonsBasedOnScrollableContent(boolean scrollable) {
-        if (getView() == null) {
-            return;
+    private void resolveListenerCandidates() {
+        final List<Object> candidates = new ArrayList<Object>(3);
+        mListenerTarget = getTargetFragment();
+        addListenerCandidate(candidates, mListenerTarget);
+        for (Fragment parent = getParentFragment(); parent != null; parent = parent.getParentFragment()) {
+            addListenerCandidate(candidates, parent);
         }
-        View vButtonDivider = getView().findViewById(R.id.sdl_button_divider);
-        View vButtonsBottomSpace = getView().findViewById(R.id.sdl_buttons_bottom_space);
-        View vDefaultButtons = getView().findViewById(R.id.sdl_buttons_default);
-        View vStackedButtons = getView().findViewById(R.id.sdl_buttons_stacked);
-        if (vDefaultButtons.getVisibility() == View.GONE && vStackedButtons.getVisibility() == View.GONE) {
-            // no buttons
-            vButtonDivider.setVisibility(View.GONE);
-            vButtonsBottomSpace.setVisibility(View.GONE);
-        } else if (scrollable) {
-            vButtonDivider.setVisibility(View.VISIBLE);
-            vButtonsBottomSpace.setVisibility(View.GONE);
-        } else {
-            vButtonDivider.setVisibility(View.GONE);
-            vButtonsBottomSpace.setVisibility(View.VISIBLE);
+        addListenerCandidate(candidates, getActivity());
+        mListenerCandidates = candidates.toArray();
+        mDialogListeners.clear();
+    }
+
+    private static void addListenerCandidate(List<Object> candidates, Object candidate) {
+        // e.g. the target fragment can be the parent fragment too, it would be notified twice
+        if (candidate != null && !candidates.contains(candidate)) {
+            candidates.add(candidate);
         }
     }
 
-    private boolean isScrollable(ViewGroup listView) {
-        int totalHeight = 0;
-        for (int i = 0; i < listView.getChildCount(); i++) {
-            totalHeight += listView.getChildAt(i).getMeasuredHeight();
+    private void clearDialogListeners() {
+        mListenerCandidates = null;
+        mListenerTarget = null;
+        mDialogListeners.clear();
+    }
+
+    /**
+     * Sets the size of the dialog window. It has to happen before the window is shown, changing the size of already
+     * laid out window makes it lay out again.
+     */
+    private static void setWindowSize(Dialog dialog, boolean fullWidth, boolean fullHeight) {
+        final Window window = dialog != null ? dialog.getWindow() : null;
+        if (window == null || (!fullWidth && !fullHeight)) {
+            return;
         }
-        return listView.getMeasuredHeight() < totalHeight;
+        final WindowManager.LayoutParams attributes = window.getAttributes();
+        window.setLayout(fullWidth ? ViewGroup.LayoutParams.MATCH_PARENT : attributes.width,
+                fullHeight ? ViewGroup.LayoutParams.MATCH_PARENT : attributes.height);
     }
 
     /**
@@ -281,7 +395,7 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         }
 
         // Get the light/dark attribute from the Activity's Theme.
-        boolean useLightTheme = isActivityThemeLight();
+        boolean useLightTheme = isActivityThemeLight(getActivity());
 
         // Now check if developer overrides the Activity's Theme with an argument.
         Bundle args = getArguments();
@@ -301,24 +415,8 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
     /**
      * This method resolves the current theme declared in the manifest
      */
-    private boolean isActivityThemeLight() {
-        try {
-            TypedValue val = new TypedValue();
-
-            //Reading attr value from current theme
-            getActivity().getTheme().resolveAttribute(R.attr.isLightTheme, val, true);
-
-            //Passing the resource ID to TypedArray to get the attribute value
-            TypedArray styledAttributes =
-                    getActivity().obtainStyledAttributes(val.data, new int[]{R.attr.isLightTheme});
-            boolean lightTheme = styledAttributes.getBoolean(0, false);
-            styledAttributes.recycle();
-
-            return lightTheme;
-        } catch (RuntimeException e) {
-            //Resource not found , so sticking to light theme
-            return true;
-        }
+    static boolean isActivityThemeLight(Context context) {
+        return DialogStyleCache.isLightTheme(context);
     }
 
     /**
@@ -360,6 +458,12 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
 
         private AdapterView.OnItemClickListener mOnItemClickListener;
 
+        private AdapterView.OnItemLongClickListener mOnItemLongClickListener;
+
+        private AbsListView.OnScrollListener mOnScrollListener;
+
+        private boolean mFastScrollEnabled;
+
         private Typeface mFontRegular;
         private Typeface mFontMedium;
 
@@ -367,8 +471,10 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         private boolean mFullWidth;
         private boolean mFullHeight;
 
+        private DialogStyleCache mStyle;
+
         // Views
-        private LinearLayout content;
+        private StyledDialogLayout content;
         private TextView vTitle;
         private TextView vMessage;
         private FrameLayout vCustomView;
@@ -381,7 +487,12 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         private View vButtonsDefault;
         private View vButtonsStacked;
         private ListView vList;
-        private Bitmap mIcon;
+        private Drawable mIcon;
+        @DrawableRes
+        private int mIconRes;
+        private Uri mIconUri;
+        private boolean mTintIcon;
+        private Drawable mLoadedIcon;
 
         public Builder(Context context, LayoutInflater inflater, ViewGroup container) {
             this.mContext = context;
@@ -472,6 +583,33 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
             return this;
         }
 
+        /**
+         * @since 2.4.0
+         */
+        public Builder setOnItemLongClickListener(AdapterView.OnItemLongClickListener listener) {
+            mOnItemLongClickListener = listener;
+            return this;
+        }
+
+        /**
+         * @since 2.4.0
+         */
+        public Builder setOnScrollListener(AbsListView.OnScrollListener listener) {
+            mOnScrollListener = listener;
+            return this;
+        }
+
+        /**
+         * Shows the fast scroll thumb of the list, with sections of the adapter if it's a
+         * {@link android.widget.SectionIndexer}.
+         *
+         * @since 2.4.0
+         */
+        public Builder setFastScrollEnabled(boolean enabled) {
+            mFastScrollEnabled = enabled;
+            return this;
+        }
+
         public Builder setView(View view) {
             mCustomView = view;
             return this;
@@ -487,10 +625,46 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         }
 
         public Builder setIcon(Bitmap icon) {
+            this.mIcon = icon != null ? new BitmapDrawable(getResources(), icon) : null;
+            return this;
+        }
+
+        /**
+         * @since 2.4.0
+         */
+        public Builder setIcon(Drawable icon) {
             this.mIcon = icon;
             return this;
         }
 
+        /**
+         * Icon is loaded in the background and scaled to the height of the title, see {@link IconLoader}.
+         *
+         * @since 2.4.0
+         */
+        public Builder setIcon(@DrawableRes int iconRes) {
+            this.mIconRes = iconRes;
+            this.mIconUri = null;
+            return this;
+        }
+
+        /**
+         * @since 2.4.0
+         */
+        public Builder setIcon(Uri iconUri) {
+            this.mIconUri = iconUri;
+            this.mIconRes = 0;
+            return this;
+        }
+
+        /**
+         * @since 2.4.0
+         */
+        public Builder setTintIcon(boolean tint) {
+            this.mTintIcon = tint;
+            return this;
+        }
+
         public Builder setFullWidth(boolean set) {
             this.mFullWidth = set;
             return this;
@@ -503,33 +677,37 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
 
         public View create() {
 
-            content = (LinearLayout) mInflater.inflate(R.layout.sdl_dialog, mContainer, false);
+            mStyle = DialogStyleCache.get(mInflater.getContext(), mDialogTheme);
+            content = (StyledDialogLayout) StyledDialogs.obtainDialogView(mContext, mDialogTheme);
+            if (content == null) {
+                content = (StyledDialogLayout) StyledDialogs.createDialogView(mInflater, mContainer, mDialogTheme);
+            }
             vTitle = (TextView) content.findViewById(R.id.sdl_title);
             vMessage = (TextView) content.findViewById(R.id.sdl_message);
-            vCustomView = (FrameLayout) content.findViewById(R.id.sdl_custom);
             vPositiveButton = (Button) content.findViewById(R.id.sdl_button_positive);
             vNegativeButton = (Button) content.findViewById(R.id.sdl_button_negative);
             vNeutralButton = (Button) content.findViewById(R.id.sdl_button_neutral);
-            vPositiveButtonStacked = (Button) content.findViewById(R.id.sdl_button_positive_stacked);
-            vNegativeButtonStacked = (Button) content.findViewById(R.id.sdl_button_negative_stacked);
-            vNeutralButtonStacked = (Button) content.findViewById(R.id.sdl_button_neutral_stacked);
             vButtonsDefault = content.findViewById(R.id.sdl_buttons_default);
-            vButtonsStacked = content.findViewById(R.id.sdl_buttons_stacked);
-            vList = (ListView) content.findViewById(R.id.sdl_list);
 
-            Typeface regularFont = mFontRegular != null ? mFontRegular : TypefaceHelper.get(mContext, "Roboto-Regular");
-            Typeface mediumFont = mFontMedium != null ? mFontMedium :  TypefaceHelper.get(mContext, "Roboto-Medium");
+            Typeface regularFont = mFontRegular != null ? mFontRegular : mStyle.fontRegular;
+            Typeface mediumFont = mFontMedium != null ? mFontMedium : mStyle.fontMedium;
 
-            set(vTitle, mTitle, mediumFont, mIcon);
+            set(vTitle, mTitle, mediumFont, mIcon != null ? mIcon : loadIcon(mediumFont));
             set(vMessage, mMessage, regularFont, null);
             setPaddingOfTitleAndMessage(vTitle, vMessage);
 
+            // optional regions are inflated only when used
             if (mCustomView != null) {
+                vCustomView = (FrameLayout) inflateStub(R.id.sdl_custom_stub);
                 vCustomView.addView(mCustomView);
             }
             if (mListAdapter != null) {
+                vList = (ListView) inflateStub(R.id.sdl_list_stub);
                 vList.setAdapter(mListAdapter);
                 vList.setOnItemClickListener(mOnItemClickListener);
+                vList.setOnItemLongClickListener(mOnItemLongClickListener);
+                vList.setOnScrollListener(mOnScrollListener);
+                vList.setFastScrollEnabled(mFastScrollEnabled);
                 if (mListCheckedItemIdx != -1) {
                     vList.setSelection(mListCheckedItemIdx);
                 }
@@ -539,42 +717,13 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
                         vList.setItemChecked(i, true);
                     }
                 }
-                if (mFontRegular != null) {
-
-                    vList.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-                        @Override
-                        public void onGlobalLayout() {
-                            ViewTreeObserver vto = vList.getViewTreeObserver();
-                            if (vto != null && vto.isAlive()) {
-                                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN)
-                                    vto.removeGlobalOnLayoutListener(this);
-                                else
-                                    vto.removeOnGlobalLayoutListener(this);
-                            }
-                            new ViewTreeObserver.OnGlobalLayoutListener() {
-                                @Override
-                                public void onGlobalLayout() {
-
-                                    for (int i = 0; i < vList.getChildCount(); i++) {
-                                        View view = vList.getChildAt(i);
-                                        if (view instanceof TextView) {
-                                            ((TextView) view).setTypeface(mFontRegular);
-                                        } else if (view instanceof ViewGroup) {
-                                            for (int j = 0; j < ((ViewGroup)view).getChildCount(); j++) {
-                                                View view2 = ((ViewGroup)view).getChildAt(j);
-                                                if (view2 instanceof TextView)
-                                                    ((TextView) view2).setTypeface(mFontRegular);
-                                            }
-                                        }
-                                    }
-                                }
-                            }.onGlobalLayout();
-                        }
-                    });
-                }
             }
 
-            if (mForceStackedButtons || shouldStackButtons()) {
+            if (mForceStackedButtons || shouldStackButtons(mediumFont)) {
+                vButtonsStacked = inflateStub(R.id.sdl_buttons_stacked_stub);
+                vPositiveButtonStacked = (Button) vButtonsStacked.findViewById(R.id.sdl_button_positive_stacked);
+                vNegativeButtonStacked = (Button) vButtonsStacked.findViewById(R.id.sdl_button_negative_stacked);
+                vNeutralButtonStacked = (Button) vButtonsStacked.findViewById(R.id.sdl_button_neutral_stacked);
                 set(vPositiveButtonStacked, mPositiveButtonText, mediumFont, null, mPositiveButtonListener);
                 set(vNegativeButtonStacked, mNegativeButtonText, mediumFont, null, mNegativeButtonListener);
                 set(vNeutralButtonStacked, mNeutralButtonText, mediumFont, null, mNeutralButtonListener);
@@ -585,50 +734,51 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
                 set(vNegativeButton, mNegativeButtonText, mediumFont, null, mNegativeButtonListener);
                 set(vNeutralButton, mNeutralButtonText, mediumFont, null, mNeutralButtonListener);
                 vButtonsDefault.setVisibility(View.VISIBLE);
-                vButtonsStacked.setVisibility(View.GONE);
             }
             if (TextUtils.isEmpty(mPositiveButtonText) && TextUtils.isEmpty(mNegativeButtonText) && TextUtils.isEmpty
                     (mNeutralButtonText)) {
                 vButtonsDefault.setVisibility(View.GONE);
             }
 
-            if (mFullWidth || mFullHeight) {
-
-                content.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-                    @Override
-                    public void onGlobalLayout() {
-                        ViewTreeObserver vto = vList.getViewTreeObserver();
-                        if (vto != null && vto.isAlive()) {
-                            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN)
-                                vto.removeGlobalOnLayoutListener(this);
-                            else
-                                vto.removeOnGlobalLayoutListener(this);
-                        }
-                        new ViewTreeObserver.OnGlobalLayoutListener() {
-                            @Override
-                            public void onGlobalLayout() {
-
-                                if (mFullWidth && mFullHeight)
-                                    getDialog().getWindow().setLayout(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
-                                else if (mFullWidth)
-                                    getDialog().getWindow().setLayout(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-                                else
-                                    getDialog().getWindow().setLayout(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.MATCH_PARENT);
-                            }
-                        }.onGlobalLayout();
-                    }
-                });
-            }
+            // the view is created before the dialog is shown, so the window is still sized before its first layout
+            setWindowSize(getDialog(), mFullWidth, mFullHeight);
 
             return content;
         }
 
+        /**
+         * @return Placeholder of the icon of the required size, the icon is drawn into it once it's loaded
+         */
+        private Drawable loadIcon(Typeface titleFont) {
+            if (mTitle == null || (mIconRes == 0 && mIconUri == null)) {
+                return null;
+            }
+            // line height depends on the font
+            vTitle.setTypeface(titleFont);
+            final int size = vTitle.getLineHeight();
+            final int tint = mTintIcon && mStyle.textPrimaryColor != null ? mStyle.textPrimaryColor.getDefaultColor() : 0;
+            mLoadedIcon = mIconRes != 0 ? IconLoader.load(mContext, mIconRes, size, tint)
+                    : IconLoader.load(mContext, mIconUri, size, tint);
+            return mLoadedIcon;
+        }
+
+        private void releaseIcon() {
+            if (mLoadedIcon != null) {
+                IconLoader.release(mLoadedIcon);
+                mLoadedIcon = null;
+            }
+        }
+
+        private View inflateStub(int stubId) {
+            return DialogLayoutFactory.inflateStub((ViewStub) content.findViewById(stubId), mDialogTheme);
+        }
+
         /**
          * Padding is different if there is only title, only message or both.
          */
         private void setPaddingOfTitleAndMessage(TextView vTitle, TextView vMessage) {
-            int grid6 = mContext.getResources().getDimensionPixelSize(R.dimen.grid_6);
-            int grid4 = mContext.getResources().getDimensionPixelSize(R.dimen.grid_4);
+            int grid6 = mStyle.grid6;
+            int grid4 = mStyle.grid4;
             if (!TextUtils.isEmpty(mTitle) && !TextUtils.isEmpty(mMessage)) {
                 vTitle.setPadding(grid6, grid6, grid6, grid4);
                 vMessage.setPadding(grid6, 0, grid6, grid4);
@@ -639,31 +789,34 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
             }
         }
 
-        private boolean shouldStackButtons() {
+        private boolean shouldStackButtons(Typeface font) {
+            if (StyledDialogs.getButtonStackingMode() == StyledDialogs.STACKING_BY_WIDTH) {
+                return ButtonStacking.shouldStack(mInflater.getContext(), mStyle, font, mPositiveButtonText,
+                        mNegativeButtonText, mNeutralButtonText);
+            }
             return shouldStackButton(mPositiveButtonText) || shouldStackButton(mNegativeButtonText)
                     || shouldStackButton(mNeutralButtonText);
         }
 
         private boolean shouldStackButton(CharSequence text) {
-            final int MAX_BUTTON_CHARS = 12; // based on observation, could be done better with measuring widths
+            final int MAX_BUTTON_CHARS = 12; // based on observation, see StyledDialogs.STACKING_BY_WIDTH
             return text != null && text.length() > MAX_BUTTON_CHARS;
         }
 
-        private void set(Button button, CharSequence text, Typeface font, Bitmap icon, View.OnClickListener listener) {
+        private void set(Button button, CharSequence text, Typeface font, Drawable icon, View.OnClickListener listener) {
             set(button, text, font, icon);
             if (listener != null) {
                 button.setOnClickListener(listener);
             }
         }
 
-        private void set(TextView textView, CharSequence text, Typeface font, Bitmap icon) {
+        private void set(TextView textView, CharSequence text, Typeface font, Drawable icon) {
             if (text != null) {
                 textView.setText(text);
                 textView.setTypeface(font);
 
                 if (icon != null) {
-                    BitmapDrawable bitmapDrawable = new BitmapDrawable(getResources(), icon);
-                    textView.setCompoundDrawablesWithIntrinsicBounds(null, null, bitmapDrawable, null);
+                    textView.setCompoundDrawablesWithIntrinsicBounds(null, null, icon, null);
                 }
 
             } else {
@@ -676,7 +829,7 @@ public abstract class BaseDialogFragment extends DialogFragment implements Dialo
         //
 
 
-        private LinearLayout getvContent() {
+        private StyledDialogLayout getvContent() {
             return content;
         }
 
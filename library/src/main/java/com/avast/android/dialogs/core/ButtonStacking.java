@@ -0,0 +1,115 @@
+package com.avast.android.dialogs.core;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+import android.support.v4.util.LruCache;
+import android.support.v4.util.ObjectsCompat;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+
+import java.util.Locale;
+
+/**
+ * Decides whether dialog buttons have to be stacked by measuring their labels, see
+ * {@link StyledDialogs#STACKING_BY_WIDTH}. Decisions are cached, so showing the same dialog again doesn't
+ * measure anything. The decisions depend on the font scale and locale, they are dropped together with
+ * {@link DialogStyleCache} when the configuration changes.
+ */
+final class ButtonStacking {
+
+    private static final LruCache<Key, Boolean> sCache = new LruCache<>(32);
+    private static final TextPaint sPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+
+    private ButtonStacking() {
+    }
+
+    /**
+     * @param context Context themed with the dialog theme
+     * @param style   Cached style of the dialog theme
+     * @param font    Font of the button labels
+     * @return True if the labels don't fit next to each other into the widest possible dialog
+     */
+    static boolean shouldStack(Context context, DialogStyleCache style, Typeface font, CharSequence positive,
+                               CharSequence negative, CharSequence neutral) {
+        final Key key = new Key(positive, negative, neutral, font, style.availableWidth);
+        Boolean stack = sCache.get(key);
+        if (stack == null) {
+            stack = measure(context.getResources(), style, font, positive, negative, neutral);
+            sCache.put(key, stack);
+        }
+        return stack;
+    }
+
+    /**
+     * Drops the cached decisions.
+     */
+    static void clear() {
+        sCache.evictAll();
+    }
+
+    private static boolean measure(Resources res, DialogStyleCache style, Typeface font, CharSequence... labels) {
+        // SDL.Button and SDL.Layout.Buttons
+        final int buttonPadding = style.grid2;
+        final int buttonMargin = style.grid1;
+        final int buttonMinWidth = style.grid16;
+        final int availableWidth = style.availableWidth;
+        final Locale locale = res.getConfiguration().locale;
+
+        sPaint.setTypeface(font);
+        sPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14, res.getDisplayMetrics()));
+
+        int width = 2 * buttonPadding;
+        for (CharSequence label : labels) {
+            if (TextUtils.isEmpty(label)) {
+                continue;
+            }
+            // buttons are all caps
+            final int textWidth = (int) Math.ceil(sPaint.measureText(label.toString().toUpperCase(locale)));
+            width += Math.max(buttonMinWidth, textWidth + 2 * buttonPadding) + 2 * buttonMargin;
+            if (width > availableWidth) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Key {
+
+        private final String mPositive;
+        private final String mNegative;
+        private final String mNeutral;
+        private final Typeface mFont;
+        private final int mWidth;
+
+        Key(CharSequence positive, CharSequence negative, CharSequence neutral, Typeface font, int width) {
+            mPositive = positive != null ? positive.toString() : null;
+            mNegative = negative != null ? negative.toString() : null;
+            mNeutral = neutral != null ? neutral.toString() : null;
+            mFont = font;
+            mWidth = width;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mWidth == key.mWidth
+                    && mFont == key.mFont
+                    && ObjectsCompat.equals(mPositive, key.mPositive)
+                    && ObjectsCompat.equals(mNegative, key.mNegative)
+                    && ObjectsCompat.equals(mNeutral, key.mNeutral);
+        }
+
+        @Override
+        public int hashCode() {
+            return ObjectsCompat.hash(mPositive, mNegative, mNeutral, mFont, mWidth);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.avast.android.dialogs.core;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.support.annotation.StyleRes;
+import android.support.v7.widget.AppCompatButton;
+import android.support.v7.widget.AppCompatTextView;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+import android.widget.Button;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.RelativeLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import com.avast.android.dialogs.R;
+import com.avast.android.dialogs.util.StyledDialogLayout;
+
+/**
+ * Builds the same view tree as {@code R.layout.sdl_dialog} directly in code, without parsing XML and
+ * instantiating views via reflection. Styles declared in {@code sdl_styles.xml} are mirrored here, so keep
+ * both in sync.
+ *
+ * @see StyledDialogs#setInflationMode(int)
+ */
+final class DialogLayoutFactory {
+
+    private static final int MATCH = ViewGroup.LayoutParams.MATCH_PARENT;
+    private static final int WRAP = ViewGroup.LayoutParams.WRAP_CONTENT;
+
+    private DialogLayoutFactory() {
+    }
+
+    /**
+     * @param context Context themed with the dialog theme
+     * @param theme   The dialog theme
+     * @return Root of the dialog, equivalent to inflated {@code R.layout.sdl_dialog}
+     */
+    static StyledDialogLayout createDialogView(Context context, @StyleRes int theme) {
+        final DialogStyleCache style = DialogStyleCache.get(context, theme);
+        final ColorStateList accentColor = getAccentColor(context);
+
+        // SDL.Layout
+        final StyledDialogLayout root = new StyledDialogLayout(context);
+        root.setLayoutParams(new ViewGroup.LayoutParams(MATCH, MATCH));
+
+        // SDL.TextView.Title
+        final TextView title = new AppCompatTextView(context);
+        title.setId(R.id.sdl_title);
+        title.setTextSize(TypedValue.COMPLEX_UNIT_SP, 20);
+        setTextColor(title, style.textPrimaryColor);
+        root.addView(title, new StyledDialogLayout.LayoutParams(MATCH, WRAP, StyledDialogLayout.ROLE_HEADER));
+
+        // SDL.ScrollView
+        final ScrollView messageScrollView = new ScrollView(context);
+        messageScrollView.setId(R.id.sdl_message_scrollview);
+        root.addView(messageScrollView, new StyledDialogLayout.LayoutParams(MATCH, WRAP, StyledDialogLayout.ROLE_BODY));
+
+        // SDL.TextView.Message
+        final TextView message = new AppCompatTextView(context);
+        message.setId(R.id.sdl_message);
+        message.setTextSize(TypedValue.COMPLEX_UNIT_SP, 18);
+        setTextColor(message, style.textSecondaryColor);
+        messageScrollView.addView(message, new FrameLayout.LayoutParams(MATCH, WRAP));
+
+        root.addView(createStub(context, R.id.sdl_custom_stub),
+                new StyledDialogLayout.LayoutParams(MATCH, WRAP, StyledDialogLayout.ROLE_BODY));
+        root.addView(createStub(context, R.id.sdl_list_stub),
+                new StyledDialogLayout.LayoutParams(MATCH, WRAP, StyledDialogLayout.ROLE_BODY));
+
+        // SDL.Layout.Buttons
+        final RelativeLayout buttonsDefault = new RelativeLayout(context);
+        buttonsDefault.setId(R.id.sdl_buttons_default);
+        buttonsDefault.setPadding(style.grid2, 0, style.grid2, 0);
+        buttonsDefault.setGravity(Gravity.CENTER_VERTICAL);
+        root.addView(buttonsDefault,
+                new StyledDialogLayout.LayoutParams(MATCH, style.grid12, StyledDialogLayout.ROLE_FOOTER));
+
+        // SDL.Button.Neutral
+        final Button neutral = createButton(context, style, accentColor, R.id.sdl_button_neutral, style.grid2);
+        final RelativeLayout.LayoutParams neutralParams = new RelativeLayout.LayoutParams(WRAP, style.grid9);
+        neutralParams.addRule(RelativeLayout.ALIGN_PARENT_LEFT);
+        neutralParams.addRule(RelativeLayout.CENTER_VERTICAL);
+        neutralParams.leftMargin = style.grid1;
+        neutralParams.rightMargin = style.grid1;
+        buttonsDefault.addView(neutral, neutralParams);
+
+        // SDL.Layout.Buttons.Right
+        final LinearLayout buttonsDefaultRight = new LinearLayout(context);
+        buttonsDefaultRight.setId(R.id.sdl_buttons_default_right);
+        buttonsDefaultRight.setOrientation(LinearLayout.HORIZONTAL);
+        buttonsDefaultRight.setGravity(Gravity.CENTER_VERTICAL);
+        final RelativeLayout.LayoutParams rightParams = new RelativeLayout.LayoutParams(WRAP, MATCH);
+        rightParams.addRule(RelativeLayout.ALIGN_PARENT_RIGHT);
+        buttonsDefault.addView(buttonsDefaultRight, rightParams);
+
+        // SDL.Button
+        buttonsDefaultRight.addView(createButton(context, style, accentColor, R.id.sdl_button_negative, style.grid2),
+                createButtonParams(WRAP, style.grid9, style.grid1));
+        buttonsDefaultRight.addView(createButton(context, style, accentColor, R.id.sdl_button_positive, style.grid2),
+                createButtonParams(WRAP, style.grid9, style.grid1));
+
+        root.addView(createStub(context, R.id.sdl_buttons_stacked_stub),
+                new StyledDialogLayout.LayoutParams(MATCH, WRAP, StyledDialogLayout.ROLE_FOOTER));
+
+        return root;
+    }
+
+    /**
+     * Inflates an optional region of the dialog. Stubs created by this factory have no layout resource, their
+     * content is built in code and put in place of the stub the same way {@link ViewStub#inflate()} does.
+     *
+     * @param theme The dialog theme
+     * @return The inflated region
+     */
+    static View inflateStub(ViewStub stub, @StyleRes int theme) {
+        if (stub.getLayoutResource() != 0) {
+            return stub.inflate();
+        }
+
+        final Context context = stub.getContext();
+        final int id = stub.getId();
+        final View view;
+        // resource ids of a library are not final, so no switch here
+        if (id == R.id.sdl_custom_stub) {
+            view = createCustom(context);
+        } else if (id == R.id.sdl_list_stub) {
+            view = createList(context, DialogStyleCache.get(context, theme));
+        } else if (id == R.id.sdl_buttons_stacked_stub) {
+            view = createStackedButtons(context, DialogStyleCache.get(context, theme), getAccentColor(context));
+        } else {
+            throw new IllegalArgumentException("Unknown stub " + stub);
+        }
+
+        final ViewGroup parent = (ViewGroup) stub.getParent();
+        final int index = parent.indexOfChild(stub);
+        parent.removeViewInLayout(stub);
+        parent.addView(view, index, stub.getLayoutParams());
+        return view;
+    }
+
+    // SDL.Layout.Custom
+    private static FrameLayout createCustom(Context context) {
+        final FrameLayout custom = new FrameLayout(context);
+        custom.setId(R.id.sdl_custom);
+        return custom;
+    }
+
+    // SDL.ListView
+    private static ListView createList(Context context, DialogStyleCache style) {
+        final ListView list = new ListView(context);
+        list.setId(R.id.sdl_list);
+        list.setScrollBarStyle(View.SCROLLBARS_OUTSIDE_OVERLAY);
+        list.setDivider(null);
+        list.setDividerHeight(0);
+        if (style.listSelector != 0) {
+            list.setSelector(style.listSelector);
+        }
+        return list;
+    }
+
+    // SDL.Layout.Buttons.Stacked
+    private static LinearLayout createStackedButtons(Context context, DialogStyleCache style,
+                                                     ColorStateList accentColor) {
+        final LinearLayout buttonsStacked = new LinearLayout(context);
+        buttonsStacked.setId(R.id.sdl_buttons_stacked);
+        buttonsStacked.setOrientation(LinearLayout.VERTICAL);
+        buttonsStacked.setGravity(Gravity.CENTER_VERTICAL);
+
+        buttonsStacked.addView(createStackedButton(context, style, accentColor, R.id.sdl_button_positive_stacked),
+                createButtonParams(MATCH, style.grid12, 0));
+        buttonsStacked.addView(createStackedButton(context, style, accentColor, R.id.sdl_button_negative_stacked),
+                createButtonParams(MATCH, style.grid12, 0));
+        buttonsStacked.addView(createStackedButton(context, style, accentColor, R.id.sdl_button_neutral_stacked),
+                createButtonParams(MATCH, style.grid12, 0));
+        return buttonsStacked;
+    }
+
+    private static ViewStub createStub(Context context, int id) {
+        final ViewStub stub = new ViewStub(context);
+        stub.setId(id);
+        return stub;
+    }
+
+    private static Button createButton(Context context, DialogStyleCache style, ColorStateList accentColor, int id,
+                                       int horizontalPadding) {
+        final Button button = new AppCompatButton(context);
+        button.setId(id);
+        if (style.buttonBackground != 0) {
+            button.setBackgroundResource(style.buttonBackground);
+        }
+        button.setMinWidth(style.grid16);
+        button.setMinimumWidth(style.grid16);
+        button.setPadding(horizontalPadding, button.getPaddingTop(), horizontalPadding, button.getPaddingBottom());
+        button.setTextSize(TypedValue.COMPLEX_UNIT_SP, 14);
+        button.setAllCaps(true);
+        button.setSingleLine(true);
+        setTextColor(button, accentColor);
+        return button;
+    }
+
+    // SDL.Button.Stacked
+    private static Button createStackedButton(Context context, DialogStyleCache style, ColorStateList accentColor,
+                                              int id) {
+        final Button button = createButton(context, style, accentColor, id, style.grid8);
+        button.setGravity(Gravity.CENTER_VERTICAL | Gravity.END);
+        return button;
+    }
+
+    private static LinearLayout.LayoutParams createButtonParams(int width, int height, int horizontalMargin) {
+        final LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(width, height);
+        params.gravity = Gravity.CENTER;
+        params.leftMargin = horizontalMargin;
+        params.rightMargin = horizontalMargin;
+        return params;
+    }
+
+    private static void setTextColor(TextView textView, ColorStateList color) {
+        if (color != null) {
+            textView.setTextColor(color);
+        }
+    }
+
+    /**
+     * Accent comes from the Activity theme, so it's not part of {@link DialogStyleCache}.
+     */
+    private static ColorStateList getAccentColor(Context context) {
+        final TypedArray accent = context.obtainStyledAttributes(new int[]{R.attr.colorAccent});
+        final ColorStateList accentColor = accent.getColorStateList(0);
+        accent.recycle();
+        return accentColor;
+    }
+}
@@ -0,0 +1,185 @@
+package com.avast.android.dialogs.core;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.StyleRes;
+import android.support.v4.util.ObjectsCompat;
+import android.util.SparseArray;
+import android.util.TypedValue;
+
+import com.avast.android.dialogs.R;
+import com.avast.android.dialogs.util.TypefaceHelper;
+
+import java.util.WeakHashMap;
+
+/**
+ * Values of resources and theme attributes every dialog needs, resolved once per dialog theme. Showing the same
+ * kind of dialog again doesn't touch the resource system. Everything is dropped when the configuration changes.
+ * <p>
+ * Only values defined by the dialog theme itself are cached, attributes inherited from the Activity theme (e.g.
+ * {@code colorAccent}) differ between activities and are resolved by the callers.
+ */
+final class DialogStyleCache {
+
+    private static final SparseArray<DialogStyleCache> sStyles = new SparseArray<>();
+    // the resource id of the Activity theme is not accessible, so its light flag is kept per Theme instance
+    private static final WeakHashMap<Resources.Theme, Boolean> sLightThemes = new WeakHashMap<>();
+    private static Configuration sConfiguration;
+
+    final ColorStateList textPrimaryColor;
+    final ColorStateList textSecondaryColor;
+    final int buttonBackground;
+    final int listSelector;
+
+    final int grid1;
+    final int grid2;
+    final int grid4;
+    final int grid6;
+    final int grid8;
+    final int grid9;
+    final int grid12;
+    final int grid16;
+
+    /**
+     * Width of the screen without the insets of the window background, dialog can't be wider.
+     */
+    final int availableWidth;
+
+    final Typeface fontRegular;
+    final Typeface fontMedium;
+
+    private DialogStyleCache(Context context) {
+        final TypedArray a = context.obtainStyledAttributes(R.styleable.StyledDialogs);
+        textPrimaryColor = a.getColorStateList(R.styleable.StyledDialogs_sdlTextPrimaryColor);
+        textSecondaryColor = a.getColorStateList(R.styleable.StyledDialogs_sdlTextSecondaryColor);
+        buttonBackground = a.getResourceId(R.styleable.StyledDialogs_sdlButtonBackground, 0);
+        listSelector = a.getResourceId(R.styleable.StyledDialogs_sdlListSelector, 0);
+        a.recycle();
+
+        final Resources res = context.getResources();
+        grid1 = res.getDimensionPixelSize(R.dimen.grid_1);
+        grid2 = res.getDimensionPixelSize(R.dimen.grid_2);
+        grid4 = res.getDimensionPixelSize(R.dimen.grid_4);
+        grid6 = res.getDimensionPixelSize(R.dimen.grid_6);
+        grid8 = res.getDimensionPixelSize(R.dimen.grid_8);
+        grid9 = res.getDimensionPixelSize(R.dimen.grid_9);
+        grid12 = res.getDimensionPixelSize(R.dimen.grid_12);
+        grid16 = res.getDimensionPixelSize(R.dimen.grid_16);
+
+        int width = res.getDisplayMetrics().widthPixels;
+        final TypedArray background = context.obtainStyledAttributes(new int[]{android.R.attr.windowBackground});
+        final Drawable drawable = background.getDrawable(0);
+        background.recycle();
+        final Rect padding = new Rect();
+        if (drawable != null && drawable.getPadding(padding)) {
+            width -= padding.left + padding.right;
+        }
+        availableWidth = width;
+
+        final boolean systemFonts = StyledDialogs.getFontPolicy() == StyledDialogs.FONTS_SYSTEM;
+        // system fonts are Roboto too, they don't have to be read from the APK
+        if (systemFonts && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            fontRegular = Typeface.create("sans-serif", Typeface.NORMAL);
+        } else {
+            fontRegular = TypefaceHelper.get(context, "Roboto-Regular");
+        }
+        if (systemFonts && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            fontMedium = Typeface.create("sans-serif-medium", Typeface.NORMAL);
+        } else {
+            fontMedium = TypefaceHelper.get(context, "Roboto-Medium");
+        }
+    }
+
+    /**
+     * @param context Context themed with the dialog theme
+     * @param theme   The dialog theme
+     */
+    static DialogStyleCache get(Context context, @StyleRes int theme) {
+        checkConfiguration(context);
+        DialogStyleCache style = sStyles.get(theme);
+        if (style == null) {
+            style = new DialogStyleCache(context);
+            sStyles.put(theme, style);
+        }
+        return style;
+    }
+
+    /**
+     * Drops the cached styles, e.g. when the default fonts change.
+     */
+    static void clear() {
+        sStyles.clear();
+        ButtonStacking.clear();
+    }
+
+    /**
+     * @return True if the theme of the context (usually the Activity) is light
+     */
+    static boolean isLightTheme(Context context) {
+        checkConfiguration(context);
+        final Resources.Theme theme = context.getTheme();
+        Boolean light = sLightThemes.get(theme);
+        if (light == null) {
+            light = resolveLightTheme(context);
+            sLightThemes.put(theme, light);
+        }
+        return light;
+    }
+
+    private static boolean resolveLightTheme(Context context) {
+        try {
+            TypedValue val = new TypedValue();
+
+            //Reading attr value from current theme
+            context.getTheme().resolveAttribute(R.attr.isLightTheme, val, true);
+
+            //Passing the resource ID to TypedArray to get the attribute value
+            TypedArray styledAttributes =
+                    context.obtainStyledAttributes(val.data, new int[]{R.attr.isLightTheme});
+            boolean lightTheme = styledAttributes.getBoolean(0, false);
+            styledAttributes.recycle();
+
+            return lightTheme;
+        } catch (RuntimeException e) {
+            //Resource not found , so sticking to light theme
+            return true;
+        }
+    }
+
+    /**
+     * Dimensions and resolved resources differ between configurations (orientation, density, night mode, ...).
+     */
+    private static void checkConfiguration(Context context) {
+        final Configuration configuration = context.getResources().getConfiguration();
+        if (sConfiguration == null || !isSameStyle(sConfiguration, configuration)) {
+            sStyles.clear();
+            sLightThemes.clear();
+            ButtonStacking.clear();
+            sConfiguration = new Configuration(configuration);
+        }
+    }
+
+    /**
+     * Compares only the fields the cached values depend on. Since API 26 configurations of the application and of
+     * an Activity differ in other fields (window bounds, sequence numbers), the cache would be dropped whenever
+     * dialogs are built with both contexts. Also used by the skeleton pool of {@link StyledDialogs}, so both are
+     * dropped on the same changes.
+     */
+    @SuppressWarnings("deprecation")
+    static boolean isSameStyle(Configuration a, Configuration b) {
+        return a.fontScale == b.fontScale
+                && a.orientation == b.orientation
+                && a.uiMode == b.uiMode
+                && a.screenWidthDp == b.screenWidthDp
+                && a.screenHeightDp == b.screenHeightDp
+                && (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1 || a.densityDpi == b.densityDpi)
+                && ObjectsCompat.equals(a.locale, b.locale);
+    }
+}
@@ -0,0 +1,392 @@
+package com.avast.android.dialogs.core;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.support.annotation.IntDef;
+import android.support.v4.view.LayoutInflaterCompat;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.avast.android.dialogs.R;
+
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Library-wide settings and tuning hooks of the styled dialogs.
+ * <p>
+ * All methods have to be called from the main thread.
+ *
+ * @since 2.4.0
+ */
+public final class StyledDialogs {
+
+    /**
+     * Dialog layout is inflated from {@code R.layout.sdl_dialog}. This is the default.
+     */
+    public static final int INFLATION_XML = 0;
+    /**
+     * Dialog layout is constructed directly in code, which skips XML parsing and reflective view instantiation.
+     */
+    public static final int INFLATION_CODE = 1;
+
+    /**
+     * Buttons are stacked if any of the labels is longer than 12 characters. This is the default.
+     */
+    public static final int STACKING_BY_LENGTH = 0;
+    /**
+     * Buttons are stacked if their labels, measured with the button font, don't fit next to each other into the
+     * dialog.
+     */
+    public static final int STACKING_BY_WIDTH = 1;
+
+    /**
+     * Default fonts are the system Roboto fonts where the system has them ({@code sans-serif} since API 16,
+     * {@code sans-serif-medium} since API 21), fonts bundled in the library assets are used only on older versions.
+     * This is the default.
+     */
+    public static final int FONTS_SYSTEM = 0;
+    /**
+     * Default fonts are always loaded from the library assets.
+     */
+    public static final int FONTS_BUNDLED = 1;
+
+    private static final String TAG = "StyledDialogs";
+
+    // skeletons are inflated one at a time, the inflater isn't shared between threads
+    private static final ThreadPoolExecutor sInflateExecutor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+
+    static {
+        sInflateExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static int sInflationMode = INFLATION_XML;
+    private static int sButtonStackingMode = STACKING_BY_LENGTH;
+    private static int sFontPolicy = FONTS_SYSTEM;
+    // skeletons carry colors of the Activity theme they were inflated with, so they are kept per Theme instance
+    private static final WeakHashMap<Resources.Theme, ThemePool> sPools = new WeakHashMap<>();
+    private static Configuration sPoolConfiguration;
+    // bumped whenever the pool is dropped, skeletons of older inflations are thrown away
+    private static int sPoolGeneration;
+    private static int sPoolHits;
+    private static int sPoolMisses;
+
+    private StyledDialogs() {
+    }
+
+    /**
+     * Sets how the layout of dialogs is created.
+     *
+     * @param mode {@link #INFLATION_XML} or {@link #INFLATION_CODE}
+     */
+    @MainThread
+    public static void setInflationMode(@InflationMode int mode) {
+        if (sInflationMode != mode) {
+            sInflationMode = mode;
+            resetPool();
+        }
+    }
+
+    @InflationMode
+    public static int getInflationMode() {
+        return sInflationMode;
+    }
+
+    /**
+     * Sets how dialogs decide whether to stack their buttons. Buttons are always stacked if the dialog is built with
+     * {@link BaseDialogBuilder#useStackedButtons()}.
+     *
+     * @param mode {@link #STACKING_BY_LENGTH} or {@link #STACKING_BY_WIDTH}
+     */
+    public static void setButtonStackingMode(@ButtonStackingMode int mode) {
+        sButtonStackingMode = mode;
+    }
+
+    @ButtonStackingMode
+    public static int getButtonStackingMode() {
+        return sButtonStackingMode;
+    }
+
+    /**
+     * Sets where the default fonts of dialogs come from. Fonts set by the dialog builders are not affected.
+     *
+     * @param policy {@link #FONTS_SYSTEM} or {@link #FONTS_BUNDLED}
+     */
+    @MainThread
+    public static void setFontPolicy(@FontPolicy int policy) {
+        if (sFontPolicy != policy) {
+            sFontPolicy = policy;
+            DialogStyleCache.clear();
+        }
+    }
+
+    @FontPolicy
+    public static int getFontPolicy() {
+        return sFontPolicy;
+    }
+
+    /**
+     * Pre-inflates dialog skeletons for the theme the dialogs shown from this context would use.
+     * Inflation starts once the main thread is idle and runs in the background, so it's safe to call
+     * this from {@code Activity.onCreate()}.
+     * <p>
+     * Theme attributes (e.g. {@code colorAccent}) are taken from the given context, so pass the Activity
+     * the dialogs will be shown from. The skeletons are used only by dialogs shown from that Activity, they are
+     * dropped with it. The Activity itself is not retained, views of the skeletons are created with the application
+     * context wrapped in a copy of the Activity theme, so their {@link View#getContext()} is not the Activity.
+     *
+     * @param context Activity the dialogs will be shown from
+     * @param count   How many skeletons should be kept ready
+     */
+    @MainThread
+    public static void prewarm(@NonNull Context context, int count) {
+        int theme = BaseDialogFragment.isActivityThemeLight(context) ? R.style.SDL_Dialog : R.style.SDL_Dark_Dialog;
+        prewarm(context, theme, count);
+    }
+
+    /**
+     * Like {@link #prewarm(Context, int)} but for dialogs using an explicit theme, e.g. a custom dialog
+     * overriding {@link android.support.v4.app.DialogFragment#getTheme()}.
+     */
+    @MainThread
+    public static void prewarm(@NonNull Context context, @StyleRes final int theme, final int count) {
+        checkConfiguration(context);
+
+        // the theme is copied onto the application context to avoid leaking the Activity via the pool
+        final PoolContext themedContext = new PoolContext(context.getApplicationContext());
+        themedContext.getTheme().setTo(context.getTheme());
+        themedContext.getTheme().applyStyle(theme, true);
+
+        final ThemePool pool = getPool(context.getTheme());
+        final int generation = sPoolGeneration;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                int missing = count - pool.pooledCount(theme) - pool.pendingCount(theme);
+                if (generation != sPoolGeneration || missing <= 0) {
+                    return false;
+                }
+                if (sInflationMode == INFLATION_CODE) {
+                    // building in code is cheap enough to be done right here
+                    for (int i = 0; i < missing; i++) {
+                        pool.add(theme, DialogLayoutFactory.createDialogView(themedContext, theme), count);
+                    }
+                    return false;
+                }
+                // created here, the background thread only uses it
+                final LayoutInflater inflater = LayoutInflater.from(themedContext);
+                for (int i = 0; i < missing; i++) {
+                    pool.setPendingCount(theme, pool.pendingCount(theme) + 1);
+                    sInflateExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            final View view = inflateInBackground(inflater);
+                            sHandler.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (generation != sPoolGeneration) {
+                                        // the pool was dropped while inflating, the pending counts were reset with it
+                                        return;
+                                    }
+                                    pool.setPendingCount(theme, pool.pendingCount(theme) - 1);
+                                    // some views can be created only on the main thread, see inflateInBackground()
+                                    pool.add(theme, view != null ? view
+                                            : inflater.inflate(R.layout.sdl_dialog, null, false), count);
+                                }
+                            });
+                        }
+                    });
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Drops all pre-inflated skeletons, e.g. when the app is trimming memory.
+     */
+    @MainThread
+    public static void clearPool() {
+        resetPool();
+    }
+
+    /**
+     * @return How many dialogs were created from a pre-inflated skeleton
+     */
+    public static int getPoolHitCount() {
+        return sPoolHits;
+    }
+
+    /**
+     * @return How many dialogs had to inflate their layout because the pool was empty
+     */
+    public static int getPoolMissCount() {
+        return sPoolMisses;
+    }
+
+    public static void resetPoolStats() {
+        sPoolHits = 0;
+        sPoolMisses = 0;
+    }
+
+    /**
+     * Takes a pre-inflated dialog skeleton for the given theme out of the pool.
+     *
+     * @param context Activity the dialog is shown from
+     * @return The skeleton or null if the pool is empty
+     */
+    @Nullable
+    static View obtainDialogView(Context context, @StyleRes int theme) {
+        checkConfiguration(context);
+        final ThemePool pool = sPools.get(context.getTheme());
+        final View view = pool != null ? pool.take(theme) : null;
+        if (view == null) {
+            sPoolMisses++;
+        } else {
+            sPoolHits++;
+        }
+        return view;
+    }
+
+    /**
+     * Creates a new dialog skeleton using the current {@link #getInflationMode() inflation mode}.
+     */
+    static View createDialogView(LayoutInflater inflater, ViewGroup container, @StyleRes int theme) {
+        if (sInflationMode == INFLATION_CODE) {
+            return DialogLayoutFactory.createDialogView(inflater.getContext(), theme);
+        }
+        return inflater.inflate(R.layout.sdl_dialog, container, false);
+    }
+
+    @Nullable
+    private static View inflateInBackground(LayoutInflater inflater) {
+        try {
+            return inflater.inflate(R.layout.sdl_dialog, null, false);
+        } catch (RuntimeException e) {
+            // e.g. a view creating a Handler in its constructor, the caller inflates it again on the main thread
+            Log.w(TAG, "Can't inflate the dialog in the background", e);
+            return null;
+        }
+    }
+
+    private static ThemePool getPool(Resources.Theme activityTheme) {
+        ThemePool pool = sPools.get(activityTheme);
+        if (pool == null) {
+            pool = new ThemePool();
+            sPools.put(activityTheme, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Skeletons inflated for a different configuration (orientation, locale, ...) can't be reused.
+     */
+    private static void checkConfiguration(Context context) {
+        Configuration configuration = context.getResources().getConfiguration();
+        if (sPoolConfiguration == null || !DialogStyleCache.isSameStyle(sPoolConfiguration, configuration)) {
+            resetPool();
+            sPoolConfiguration = new Configuration(configuration);
+        }
+    }
+
+    /**
+     * Drops the pooled skeletons and the ones being inflated.
+     */
+    private static void resetPool() {
+        sPools.clear();
+        sPoolGeneration++;
+    }
+
+    /**
+     * Context of the pooled skeletons. Its inflater creates AppCompat widgets like the inflater of an
+     * {@code AppCompatActivity}, also for the optional regions inflated from the stubs later.
+     */
+    private static final class PoolContext extends ContextThemeWrapper {
+
+        private LayoutInflater mInflater;
+
+        PoolContext(Context base) {
+            super(base, 0);
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if (LAYOUT_INFLATER_SERVICE.equals(name)) {
+                if (mInflater == null) {
+                    mInflater = LayoutInflater.from(getBaseContext()).cloneInContext(this);
+                    LayoutInflaterCompat.setFactory2(mInflater, new AppCompatWidgetFactory());
+                }
+                return mInflater;
+            }
+            return super.getSystemService(name);
+        }
+    }
+
+    /**
+     * Skeletons inflated with one Activity theme, by dialog theme. Views reference only a copy of the Activity
+     * theme, so they don't keep the key of {@link #sPools} alive.
+     */
+    private static final class ThemePool {
+
+        private final SparseArray<ArrayList<View>> mViews = new SparseArray<>();
+        private final SparseIntArray mPending = new SparseIntArray();
+
+        void add(int theme, View view, int capacity) {
+            ArrayList<View> views = mViews.get(theme);
+            if (views == null) {
+                views = new ArrayList<>(capacity);
+                mViews.put(theme, views);
+            }
+            views.add(view);
+        }
+
+        @Nullable
+        View take(int theme) {
+            ArrayList<View> views = mViews.get(theme);
+            return views != null && !views.isEmpty() ? views.remove(views.size() - 1) : null;
+        }
+
+        int pooledCount(int theme) {
+            ArrayList<View> views = mViews.get(theme);
+            return views != null ? views.size() : 0;
+        }
+
+        int pendingCount(int theme) {
+            return mPending.get(theme);
+        }
+
+        void setPendingCount(int theme, int count) {
+            mPending.put(theme, count);
+        }
+    }
+
+    @IntDef({INFLATION_XML, INFLATION_CODE})
+    public @interface InflationMode {
+    }
+
+    @IntDef({STACKING_BY_LENGTH, STACKING_BY_WIDTH})
+    public @interface ButtonStackingMode {
+    }
+
+    @IntDef({FONTS_SYSTEM, FONTS_BUNDLED})
+    public @interface FontPolicy {
+    }
+}
@@ -69,8 +69,9 @@ public class DatePickerDialogFragment extends BaseDialogFragment {
 
                 @Override
                 public void onClick(View view) {
-                    for (IDateDialogListener listener : getDialogListeners()) {
-                        listener.onPositiveButtonClicked(mRequestCode, getDate());
+                    final List<IDateDialogListener> listeners = getDialogListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onPositiveButtonClicked(mRequestCode, getDate());
                     }
                     dismiss();
                 }
@@ -83,8 +84,9 @@ public class DatePickerDialogFragment extends BaseDialogFragment {
 
                 @Override
                 public void onClick(View view) {
-                    for (IDateDialogListener listener : getDialogListeners()) {
-                        listener.onNegativeButtonClicked(mRequestCode, getDate());
+                    final List<IDateDialogListener> listeners = getDialogListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onNegativeButtonClicked(mRequestCode, getDate());
                     }
                     dismiss();
                 }
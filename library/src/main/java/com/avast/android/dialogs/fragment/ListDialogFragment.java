@@ -1,36 +1,71 @@
 package com.avast.android.dialogs.fragment;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.res.Resources;
+import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.Typeface;
+import android.net.Uri;
 import android.os.Bundle;
+import android.provider.BaseColumns;
 import android.support.annotation.IntDef;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.v4.app.FragmentManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
 import android.text.TextUtils;
-import android.util.SparseBooleanArray;
+import android.text.TextWatcher;
+import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AbsListView;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.Checkable;
+import android.widget.EditText;
+import android.widget.LinearLayout;
 import android.widget.ListAdapter;
 import android.widget.ListView;
+import android.widget.SectionIndexer;
 import android.widget.TextView;
 
 import com.avast.android.dialogs.R;
 import com.avast.android.dialogs.core.BaseDialogBuilder;
 import com.avast.android.dialogs.core.BaseDialogFragment;
+import com.avast.android.dialogs.iface.ICheckedItems;
+import com.avast.android.dialogs.iface.ICursorSource;
+import com.avast.android.dialogs.iface.IItemSource;
 import com.avast.android.dialogs.iface.IListDialogListener;
+import com.avast.android.dialogs.iface.IListItemIdListener;
+import com.avast.android.dialogs.iface.IMultiChoiceCheckedItemsListener;
 import com.avast.android.dialogs.iface.IMultiChoiceListDialogListener;
+import com.avast.android.dialogs.iface.IMultiChoiceListItemIdListener;
+import com.avast.android.dialogs.iface.IMultiChoiceListItemToggleListener;
 import com.avast.android.dialogs.iface.ISimpleDialogCancelListener;
-import com.avast.android.dialogs.util.SparseBooleanArrayParcelable;
+import com.avast.android.dialogs.iface.ITreeItemSource;
+import com.avast.android.dialogs.iface.ITreeListDialogListener;
+import com.avast.android.dialogs.util.CheckedIdSet;
+import com.avast.android.dialogs.util.CheckedItemSet;
+import com.avast.android.dialogs.util.CursorItemAdapter;
+import com.avast.android.dialogs.util.ItemFilter;
+import com.avast.android.dialogs.util.ItemLoader;
+import com.avast.android.dialogs.util.ItemSources;
+import com.avast.android.dialogs.util.ListItemAdapter;
+import com.avast.android.dialogs.util.ListItemRecyclerAdapter;
+import com.avast.android.dialogs.util.PagedItemAdapter;
+import com.avast.android.dialogs.util.SectionedItemAdapter;
+import com.avast.android.dialogs.util.TreeItemAdapter;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * Dialog with a list of options.
@@ -43,96 +78,874 @@ public class ListDialogFragment extends BaseDialogFragment {
 
 
     protected static final String ARG_ITEMS = "items";
+    protected static final String ARG_ITEM_SOURCE = "itemSource";
+    protected static final String ARG_ITEM_SOURCE_ARGS = "itemSourceArgs";
+    protected static final String ARG_ITEM_LOADER = "itemLoader";
+    protected static final String ARG_CURSOR_URI = "cursorUri";
+    protected static final String ARG_CURSOR_SELECTION = "cursorSelection";
+    protected static final String ARG_CURSOR_SELECTION_ARGS = "cursorSelectionArgs";
+    protected static final String ARG_CURSOR_SORT_ORDER = "cursorSortOrder";
+    protected static final String ARG_CURSOR_SOURCE = "cursorSource";
+    protected static final String ARG_CURSOR_COLUMN = "cursorColumn";
+    protected static final String ARG_TREE_SOURCE = "treeSource";
+    protected static final String ARG_TREE_PATH = "treePath";
+    protected static final String ARG_TREE_PATH_TITLES = "treePathTitles";
+    protected static final String ARG_CHECKED_IDS = "checkedIds";
     protected static final String ARG_CHECKED_ITEMS = "checkedItems";
     protected static final String ARG_MODE = "choiceMode";
+    protected static final String ARG_RECYCLER_VIEW = "recyclerView";
+    protected static final String ARG_SEARCHABLE = "searchable";
+    protected static final String ARG_SELECTION_ACTIONS = "selectionActions";
+    protected static final String ARG_SECTIONS = "sections";
     protected final static String ARG_TITLE = "title";
     protected final static String ARG_POSITIVE_BUTTON = "positive_button";
     protected final static String ARG_NEGATIVE_BUTTON = "negative_button";
 
-    static Typeface mFontRegular = null;
-    static Typeface mFontMedium = null;
-    static Bitmap mIcon = null;
+    private static final int SELECTION_CHECK = 0;
+    private static final int SELECTION_UNCHECK = 1;
+    private static final int SELECTION_INVERT = 2;
+
+
+    private ListAdapter mAdapter;
+    private ListItemRecyclerAdapter mRecyclerAdapter;
+    private ItemFilter mFilter;
+    private CharSequence mSearchQuery;
+    // original position of the last clicked item, start of a range selected by a long click
+    private int mRangeAnchor = -1;
+    private TextView mSectionHeader;
+    // sections and the section shown in the header, the text is set only when the section changes
+    private Object[] mHeaderSections;
+    private int mHeaderSection = -1;
+    private TextView mTreeUp;
 
     public static SimpleListDialogBuilder createBuilder(Context context, FragmentManager fragmentManager) {
         return new SimpleListDialogBuilder(context, fragmentManager);
     }
 
-    private static int[] asIntArray(SparseBooleanArray checkedItems) {
-        int checked = 0;
-        // compute number of items
-        for (int i = 0; i < checkedItems.size(); i++) {
-            int key = checkedItems.keyAt(i);
-            if (checkedItems.get(key)) {
-                ++checked;
-            }
+    @Override
+    public void onActivityCreated(Bundle savedInstanceState) {
+        super.onActivityCreated(savedInstanceState);
+        if (getArguments() == null) {
+            throw new IllegalArgumentException(
+                "use SimpleListDialogBuilder to construct this dialog");
+        }
+        if (getItems() == null && getItemLoader() != null && ItemLoader.get(getItemLoader()) == null) {
+            // the process was restarted before the items were loaded, there is nothing to choose from
+            dismissAllowingStateLoss();
         }
+        if (getTreeSource() != null && getDialog() != null) {
+            getDialog().setOnKeyListener(new DialogInterface.OnKeyListener() {
+                @Override
+                public boolean onKey(DialogInterface dialog, int keyCode, KeyEvent event) {
+                    // back goes to the parent level first, the dialog is cancelled only at the top
+                    if (keyCode != KeyEvent.KEYCODE_BACK || getTreePath().length == 0) {
+                        return false;
+                    }
+                    if (event.getAction() == KeyEvent.ACTION_UP && !event.isCanceled()) {
+                        closeNode();
+                    }
+                    return true;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        final ItemLoader loader = getArguments() != null && getItemLoader() != null
+            ? ItemLoader.get(getItemLoader()) : null;
+        if (loader != null) {
+            // the load is kept as long as this dialog exists
+            loader.claim();
+        }
+    }
 
-        int[] array = new int[checked];
-        //add indexes that are checked
-        for (int i = 0, j = 0; i < checkedItems.size(); i++) {
-            int key = checkedItems.keyAt(i);
-            if (checkedItems.get(key)) {
-                array[j++] = key;
+    @Override
+    public void onDestroy() {
+        final String key = getItemLoader();
+        final ItemLoader loader = key != null ? ItemLoader.get(key) : null;
+        if (loader != null) {
+            if (getActivity() == null || !getActivity().isChangingConfigurations()) {
+                // the dialog is dismissed, not recreated
+                loader.cancel();
+            } else {
+                // the recreated dialog claims it again
+                loader.release();
             }
         }
-        Arrays.sort(array);
-        return array;
+        super.onDestroy();
     }
 
     @Override
-    public void onActivityCreated(Bundle savedInstanceState) {
-        super.onActivityCreated(savedInstanceState);
-        if (getArguments() == null) {
-            throw new IllegalArgumentException(
-                "use SimpleListDialogBuilder to construct this dialog");
+    public void onDestroyView() {
+        final ItemLoader loader = getItemLoader() != null ? ItemLoader.get(getItemLoader()) : null;
+        if (loader != null) {
+            // the recreated dialog takes the result
+            loader.setListener(null);
+        }
+        if (mAdapter instanceof PagedItemAdapter) {
+            ((PagedItemAdapter) mAdapter).release();
+        }
+        if (mAdapter instanceof CursorItemAdapter) {
+            ((CursorItemAdapter) mAdapter).release();
+        }
+        if (mAdapter instanceof SectionedItemAdapter) {
+            ((SectionedItemAdapter) mAdapter).release();
+        }
+        if (mAdapter instanceof TreeItemAdapter) {
+            ((TreeItemAdapter) mAdapter).release();
+        }
+        if (mRecyclerAdapter != null) {
+            // updates computed after the dialog is gone are dropped
+            mRecyclerAdapter.setOnItemsUpdatedListener(null);
+        }
+        if (mFilter != null) {
+            mFilter.release();
+        }
+        mAdapter = null;
+        mRecyclerAdapter = null;
+        mFilter = null;
+        mSectionHeader = null;
+        mHeaderSections = null;
+        mHeaderSection = -1;
+        mTreeUp = null;
+        super.onDestroyView();
+    }
+
+    /**
+     * Replaces the items while the dialog is shown. In the RecyclerView mode only the changed rows are updated and
+     * checked items stay checked on their new positions, otherwise the checked positions stay the same.
+     *
+     * @throws IllegalStateException If the items are loaded from an item source or a cursor
+     * @since 2.4.0
+     */
+    public void setItems(CharSequence[] items) {
+        if (getItemSource() != null) {
+            throw new IllegalStateException("items of the dialog are provided by the item source " + getItemSource());
+        }
+        if (hasCursor()) {
+            throw new IllegalStateException("items of the dialog are read from a cursor");
+        }
+        if (getTreeSource() != null) {
+            throw new IllegalStateException("items of the dialog are provided by the tree source " + getTreeSource());
+        }
+        if (mRecyclerAdapter != null) {
+            // arguments are updated when the difference is applied, see buildRecyclerList()
+            mRecyclerAdapter.setItems(items);
+            return;
+        }
+        getArguments().putCharSequenceArray(ARG_ITEMS, items);
+        if (mAdapter instanceof ListItemAdapter) {
+            ((ListItemAdapter) mAdapter).setItems(items);
+            if (isSearchable()) {
+                // index of the old items is useless, the current query is run again on the new ones
+                if (mFilter != null) {
+                    mFilter.release();
+                }
+                mFilter = createFilter((ListItemAdapter) mAdapter, items);
+                mFilter.filter(mSearchQuery);
+            }
+        }
+    }
+
+    /**
+     * Checks all the shown items, filtered out items stay as they are. Takes time proportional to the number of
+     * items divided by 64 when the list isn't filtered, only the shown rows are redrawn.
+     *
+     * @throws IllegalStateException If the dialog is not multi-choice
+     * @since 2.4.0
+     */
+    public void selectAll() {
+        changeShownItems(0, getShownItemCount(), SELECTION_CHECK);
+    }
+
+    /**
+     * Unchecks all the items, filtered out ones too.
+     *
+     * @throws IllegalStateException If the dialog is not multi-choice
+     * @since 2.4.0
+     */
+    public void selectNone() {
+        checkMultiChoice();
+        getCheckedItems().clear();
+        refreshCheckedRows();
+        dispatchItemsToggled();
+    }
+
+    /**
+     * Checks the unchecked shown items and unchecks the checked ones.
+     *
+     * @throws IllegalStateException If the dialog is not multi-choice
+     * @since 2.4.0
+     */
+    public void invertSelection() {
+        changeShownItems(0, getShownItemCount(), SELECTION_INVERT);
+    }
+
+    /**
+     * Checks or unchecks the items in the range, positions are the original ones.
+     *
+     * @param from    First position of the range
+     * @param to      Position after the last one of the range
+     * @throws IllegalStateException If the dialog is not multi-choice
+     * @since 2.4.0
+     */
+    public void setRangeChecked(int from, int to, boolean checked) {
+        checkMultiChoice();
+        getCheckedItems().setRange(Math.max(0, from), Math.min(to, getItemCount()), checked);
+        refreshCheckedRows();
+        dispatchItemsToggled();
+    }
+
+    /**
+     * Changes the shown items from {@code from} (inclusive) to {@code to} (exclusive), whole words of the checked
+     * items at once if the list isn't filtered.
+     */
+    private void changeShownItems(int from, int to, int change) {
+        checkMultiChoice();
+        final CheckedItemSet checkedItems = getCheckedItems();
+        if (mAdapter instanceof ListItemAdapter && ((ListItemAdapter) mAdapter).isFiltered()) {
+            final ListItemAdapter adapter = (ListItemAdapter) mAdapter;
+            for (int i = from; i < to; i++) {
+                final int position = adapter.getOriginalPosition(i);
+                checkedItems.set(position, change == SELECTION_INVERT ? !checkedItems.get(position)
+                    : change == SELECTION_CHECK);
+            }
+        } else if (change == SELECTION_INVERT) {
+            checkedItems.invertRange(from, to);
+        } else {
+            checkedItems.setRange(from, to, change == SELECTION_CHECK);
+        }
+        refreshCheckedRows();
+        dispatchItemsToggled();
+    }
+
+    private void dispatchItemToggled(int position, boolean checked) {
+        final List<IMultiChoiceListItemToggleListener> listeners = getToggleListeners();
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onItemToggled(position, checked, mRequestCode);
+        }
+    }
+
+    /**
+     * Reports the row id of the selected item of a cursor list.
+     */
+    private void dispatchItemId(int position) {
+        if (!(mAdapter instanceof CursorItemAdapter)) {
+            return;
+        }
+        final long id = mAdapter.getItemId(position);
+        final List<IListItemIdListener> listeners = getDialogListeners(IListItemIdListener.class);
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onListItemSelected(position, id, mRequestCode);
         }
     }
 
+    /**
+     * Reports the row ids of the checked items of a cursor list.
+     */
+    private void dispatchItemIds(int[] positions, List<IMultiChoiceListItemIdListener> listeners) {
+        if (!(mAdapter instanceof CursorItemAdapter) || listeners.isEmpty()) {
+            return;
+        }
+        final long[] ids = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ids[i] = mAdapter.getItemId(positions[i]);
+        }
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onListItemsSelected(positions, ids, mRequestCode);
+        }
+    }
+
+    private void dispatchItemsToggled() {
+        final List<IMultiChoiceListItemToggleListener> listeners = getToggleListeners();
+        if (listeners.isEmpty()) {
+            return;
+        }
+        final ICheckedItems checkedItems = getCheckedItems().asReadOnly();
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onItemsToggled(checkedItems, mRequestCode);
+        }
+    }
+
+    private void checkMultiChoice() {
+        if (getMode() != AbsListView.CHOICE_MODE_MULTIPLE) {
+            throw new IllegalStateException("selection can be changed only in multi-choice dialogs");
+        }
+        if (getTreeSource() != null) {
+            throw new IllegalStateException("selection of tree dialogs can be changed only by clicks");
+        }
+    }
+
+    /**
+     * @return Number of the items in the list, without the filtered out ones
+     */
+    private int getShownItemCount() {
+        if (mRecyclerAdapter != null) {
+            return mRecyclerAdapter.getItemCount();
+        }
+        if (isLoading()) {
+            return 0;
+        }
+        return mAdapter != null ? mAdapter.getCount() : getItemCount();
+    }
+
     private ListAdapter prepareAdapter(final int itemLayoutId) {
-        return new ArrayAdapter<Object>(getActivity(),
-            itemLayoutId,
-            R.id.sdl_text,
-            getItems()) {
-
-            /**
-             * Overriding default implementation because it ignores current light/dark theme.
-             */
+        // font is set once when a row is created, recycled rows keep it since all rows share the same font
+        final String itemSource = getItemSource();
+        if (itemSource != null) {
+            mAdapter = new PagedItemAdapter(
+                ItemSources.create(getActivity(), itemSource, getArguments().getBundle(ARG_ITEM_SOURCE_ARGS)),
+                itemLayoutId, getFontRegular());
+            ((PagedItemAdapter) mAdapter).setCheckedItems(getCheckedItems());
+        } else if (hasCursor()) {
+            mAdapter = new CursorItemAdapter(createCursorQuery(), getArguments().getString(ARG_CURSOR_COLUMN),
+                itemLayoutId, getFontRegular());
+            ((CursorItemAdapter) mAdapter).setCheckedItems(getCheckedItems());
+        } else {
+            mAdapter = isSectioned() ? new SectionedItemAdapter(getItems(), itemLayoutId, getFontRegular())
+                : new ListItemAdapter(getItems(), itemLayoutId, getFontRegular());
+            ((ListItemAdapter) mAdapter).setCheckedItems(getCheckedItems());
+            if (getItems() == null && getItemLoader() != null) {
+                startLoading((ListItemAdapter) mAdapter);
+            }
+        }
+        return mAdapter;
+    }
+
+    /**
+     * @return Query of the cursor of the dialog, called in the background
+     */
+    private Callable<Cursor> createCursorQuery() {
+        final Context context = getActivity().getApplicationContext();
+        final Bundle args = getArguments();
+        final String source = args.getString(ARG_CURSOR_SOURCE);
+        if (source != null) {
+            final ICursorSource cursorSource = ItemSources.getCursorSource(source);
+            final Bundle sourceArgs = args.getBundle(ARG_ITEM_SOURCE_ARGS);
+            return new Callable<Cursor>() {
+                @Override
+                public Cursor call() {
+                    return cursorSource.query(context, sourceArgs);
+                }
+            };
+        }
+        final Uri uri = args.getParcelable(ARG_CURSOR_URI);
+        final String[] projection = {BaseColumns._ID, args.getString(ARG_CURSOR_COLUMN)};
+        final String selection = args.getString(ARG_CURSOR_SELECTION);
+        final String[] selectionArgs = args.getStringArray(ARG_CURSOR_SELECTION_ARGS);
+        final String sortOrder = args.getString(ARG_CURSOR_SORT_ORDER);
+        return new Callable<Cursor>() {
             @Override
-            public View getView(int position, View convertView, ViewGroup parent) {
-                if (convertView == null) {
-                    convertView = LayoutInflater.from(parent.getContext()).inflate(itemLayoutId, parent, false);
+            public Cursor call() {
+                final Cursor cursor = context.getContentResolver().query(uri, projection, selection, selectionArgs,
+                    sortOrder);
+                if (cursor != null) {
+                    // the list is queried again when the provider notifies a change
+                    cursor.setNotificationUri(context.getContentResolver(), uri);
                 }
-                TextView t = (TextView)convertView.findViewById(R.id.sdl_text);
-                if (t != null) {
-                    t.setText((CharSequence)getItem(position));
+                return cursor;
+            }
+        };
+    }
+
+    /**
+     * Shows the progress row until the items are loaded. The checked items are kept, so items checked before the
+     * load completes stay checked.
+     */
+    private void startLoading(ListItemAdapter adapter) {
+        final ItemLoader loader = ItemLoader.get(getItemLoader());
+        if (loader == null) {
+            return;
+        }
+        adapter.setLoading(true);
+        loader.setListener(new ItemLoader.OnLoadedListener() {
+            @Override
+            public void onLoaded(CharSequence[] items) {
+                setItems(items);
+            }
+        });
+    }
+
+    private boolean isLoading() {
+        if (mAdapter instanceof CursorItemAdapter) {
+            return ((CursorItemAdapter) mAdapter).isLoading();
+        }
+        return mAdapter instanceof ListItemAdapter && ((ListItemAdapter) mAdapter).isLoading();
+    }
+
+    /**
+     * Gets texts of the items at the given positions. Items of an item source may have to be loaded first, so the
+     * listener can be called later.
+     */
+    private void loadItems(int[] positions, PagedItemAdapter.OnItemsLoadedListener listener) {
+        if (mAdapter instanceof PagedItemAdapter) {
+            ((PagedItemAdapter) mAdapter).loadItems(positions, listener);
+            return;
+        }
+        if (mAdapter instanceof CursorItemAdapter) {
+            // only the texts of the selected rows are read from the cursor
+            final CharSequence[] values = new CharSequence[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                values[i] = ((CursorItemAdapter) mAdapter).getItem(positions[i]);
+            }
+            listener.onItemsLoaded(values);
+            return;
+        }
+        final CharSequence[] items = getItems();
+        final CharSequence[] values = new CharSequence[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            values[i] = items[positions[i]];
+        }
+        listener.onItemsLoaded(values);
+    }
+
+    private int getOriginalPosition(int position) {
+        return mAdapter instanceof ListItemAdapter ? ((ListItemAdapter) mAdapter).getOriginalPosition(position)
+            : position;
+    }
+
+    /**
+     * Updates the checked items and the shown rows, position is the original one.
+     */
+    private void setItemChecked(int position, boolean checked) {
+        final CheckedItemSet checkedItems = getCheckedItems();
+        if (getMode() == AbsListView.CHOICE_MODE_SINGLE) {
+            checkedItems.clear();
+        }
+        checkedItems.set(position, checked);
+        refreshCheckedRows();
+    }
+
+    /**
+     * Updates checked state of the shown rows from the checked items, the other rows get it when they are bound.
+     */
+    private void refreshCheckedRows() {
+        if (mRecyclerAdapter != null) {
+            mRecyclerAdapter.notifyCheckedItemsChanged();
+            return;
+        }
+        final ListView list = getListView();
+        if (list == null) {
+            return;
+        }
+        final int first = list.getFirstVisiblePosition();
+        if (mAdapter instanceof TreeItemAdapter) {
+            // nodes are checked by their ids
+            final CheckedIdSet checkedIds = getCheckedIds();
+            for (int i = 0, n = list.getChildCount(); i < n; i++) {
+                final View row = list.getChildAt(i);
+                if (row instanceof Checkable) {
+                    ((Checkable) row).setChecked(checkedIds.get(mAdapter.getItemId(first + i)));
                 }
-                return convertView;
+            }
+            return;
+        }
+        final CheckedItemSet checkedItems = getCheckedItems();
+        for (int i = 0, n = list.getChildCount(); i < n; i++) {
+            final View row = list.getChildAt(i);
+            if (row instanceof Checkable) {
+                ((Checkable) row).setChecked(checkedItems.get(getOriginalPosition(first + i)));
+            }
+        }
+    }
+
+    private void buildTree(Builder builder) {
+        final TreeItemAdapter adapter = new TreeItemAdapter(ItemSources.createTreeSource(getActivity(),
+            getTreeSource(), getArguments().getBundle(ARG_ITEM_SOURCE_ARGS)), getItemLayout(), getFontRegular());
+        adapter.setCheckedIds(getCheckedIds());
+        adapter.showLevel(getTreeParentId());
+        mAdapter = adapter;
+        builder.setItems(adapter, -1, new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                if (adapter.hasChildren(position)) {
+                    openNode(id, adapter.getItem(position));
+                    return;
+                }
+                final CheckedIdSet checkedIds = getCheckedIds();
+                switch (getMode()) {
+                    case AbsListView.CHOICE_MODE_MULTIPLE:
+                        checkedIds.set(id, !checkedIds.get(id));
+                        refreshCheckedRows();
+                        break;
+                    case AbsListView.CHOICE_MODE_SINGLE:
+                        checkedIds.clear();
+                        checkedIds.set(id, true);
+                        refreshCheckedRows();
+                        break;
+                    default:
+                        dispatchTreeItemSelected(adapter.getItem(position), id);
+                        dismiss();
+                        break;
+                }
+            }
+        });
+
+        mTreeUp = (TextView) builder.getLayoutInflater().inflate(R.layout.sdl_list_tree_up, null, false);
+        mTreeUp.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.WRAP_CONTENT));
+        final Typeface font = getFontMedium();
+        if (font != null) {
+            mTreeUp.setTypeface(font);
+        }
+        mTreeUp.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                closeNode();
+            }
+        });
+        updateTreeUp();
+        builder.setView(mTreeUp);
+    }
+
+    private void openNode(long id, CharSequence title) {
+        final long[] path = getTreePath();
+        final CharSequence[] titles = getTreePathTitles();
+        final long[] newPath = Arrays.copyOf(path, path.length + 1);
+        final CharSequence[] newTitles = Arrays.copyOf(titles, path.length + 1);
+        newPath[path.length] = id;
+        newTitles[path.length] = title;
+        getArguments().putLongArray(ARG_TREE_PATH, newPath);
+        getArguments().putCharSequenceArray(ARG_TREE_PATH_TITLES, newTitles);
+        // children are loaded while the current level is animated away
+        ((TreeItemAdapter) mAdapter).preloadLevel(id);
+        animateLevel(true);
+    }
+
+    private void closeNode() {
+        final long[] path = getTreePath();
+        if (path.length == 0) {
+            return;
+        }
+        getArguments().putLongArray(ARG_TREE_PATH, Arrays.copyOf(path, path.length - 1));
+        getArguments().putCharSequenceArray(ARG_TREE_PATH_TITLES,
+            Arrays.copyOf(getTreePathTitles(), path.length - 1));
+        animateLevel(false);
+    }
+
+    /**
+     * Slides the shown level out and the level at the end of the path in, within the same list.
+     */
+    private void animateLevel(boolean forward) {
+        updateTreeUp();
+        final TreeItemAdapter adapter = (TreeItemAdapter) mAdapter;
+        final ListView list = getListView();
+        if (list == null) {
+            adapter.showLevel(getTreeParentId());
+            return;
+        }
+        final float shift = (forward ? 1 : -1) * list.getWidth() / 4f;
+        final long duration = getResources().getInteger(android.R.integer.config_shortAnimTime);
+        // a running change ends right away and the new one continues from its state
+        list.animate().cancel();
+        list.animate().translationX(-shift).alpha(0f).setDuration(duration / 2)
+            .setListener(new AnimatorListenerAdapter() {
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    if (mAdapter != adapter) {
+                        // the view is gone
+                        return;
+                    }
+                    adapter.showLevel(getTreeParentId());
+                    list.setSelection(0);
+                    list.setTranslationX(shift);
+                    list.animate().translationX(0f).alpha(1f).setDuration(duration / 2).setListener(null);
+                }
+            });
+    }
+
+    private void updateTreeUp() {
+        if (mTreeUp == null) {
+            return;
+        }
+        final CharSequence[] titles = getTreePathTitles();
+        if (titles.length == 0) {
+            mTreeUp.setVisibility(View.GONE);
+        } else {
+            mTreeUp.setText(getString(R.string.sdl_tree_up, titles[titles.length - 1]));
+            mTreeUp.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void dispatchTreeItemSelected(CharSequence title, long id) {
+        final List<ITreeListDialogListener> listeners = getDialogListeners(ITreeListDialogListener.class);
+        for (int i = 0, n = listeners.size(); i < n; i++) {
+            listeners.get(i).onTreeItemSelected(title, id, mRequestCode);
+        }
+    }
+
+    private View.OnClickListener createTreeConfirmListener() {
+        return new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                final CheckedIdSet checkedIds = getCheckedIds();
+                if (getMode() == AbsListView.CHOICE_MODE_MULTIPLE) {
+                    final long[] ids = checkedIds.toArray();
+                    final List<ITreeListDialogListener> listeners =
+                        getDialogListeners(ITreeListDialogListener.class);
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onTreeItemsSelected(ids, mRequestCode);
+                    }
+                } else if (checkedIds.size() > 0) {
+                    final long id = checkedIds.getAt(0);
+                    dispatchTreeItemSelected(((TreeItemAdapter) mAdapter).findTitle(id), id);
+                } else {
+                    final List<ISimpleDialogCancelListener> listeners = getCancelListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onCancelled(mRequestCode);
+                    }
+                }
+                dismiss();
             }
         };
     }
 
+    private void buildHeader(Builder builder) {
+        final LayoutInflater inflater = builder.getLayoutInflater();
+        final LinearLayout header = new LinearLayout(inflater.getContext());
+        header.setOrientation(LinearLayout.VERTICAL);
+        header.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.WRAP_CONTENT));
+        if (hasSelectionActions() && getMode() == AbsListView.CHOICE_MODE_MULTIPLE) {
+            buildSelectionActions(inflater, header);
+        }
+        if (isSearchable() && mAdapter instanceof ListItemAdapter) {
+            buildSearch(inflater, header, (ListItemAdapter) mAdapter);
+        }
+        if (mAdapter instanceof SectionedItemAdapter) {
+            buildSections(builder, inflater, header);
+        }
+        builder.setView(header);
+    }
+
+    /**
+     * Enables fast scroll over the sections and shows the section of the first visible item above the list.
+     */
+    private void buildSections(Builder builder, LayoutInflater inflater, LinearLayout header) {
+        mSectionHeader = (TextView) inflater.inflate(R.layout.sdl_list_section_header, header, false);
+        final Typeface font = getFontMedium();
+        if (font != null) {
+            mSectionHeader.setTypeface(font);
+        }
+        header.addView(mSectionHeader);
+        builder.setFastScrollEnabled(true);
+        builder.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                // called on every layout too, so the header follows new items and sections
+                updateSectionHeader(firstVisibleItem);
+            }
+        });
+    }
+
+    private void updateSectionHeader(int firstVisibleItem) {
+        if (mSectionHeader == null || !(mAdapter instanceof SectionIndexer)) {
+            return;
+        }
+        final SectionIndexer indexer = (SectionIndexer) mAdapter;
+        final Object[] sections = indexer.getSections();
+        if (sections.length == 0 || isLoading() || mAdapter.getCount() == 0) {
+            mSectionHeader.setVisibility(View.GONE);
+            return;
+        }
+        final int section = indexer.getSectionForPosition(firstVisibleItem);
+        if (sections != mHeaderSections || section != mHeaderSection) {
+            mHeaderSections = sections;
+            mHeaderSection = section;
+            mSectionHeader.setText(sections[section].toString());
+        }
+        mSectionHeader.setVisibility(View.VISIBLE);
+    }
+
+    private void buildSelectionActions(LayoutInflater inflater, LinearLayout header) {
+        final View actions = inflater.inflate(R.layout.sdl_list_actions, header, false);
+        final View.OnClickListener listener = new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                final int id = view.getId();
+                if (id == R.id.sdl_select_all) {
+                    selectAll();
+                } else if (id == R.id.sdl_select_none) {
+                    selectNone();
+                } else if (id == R.id.sdl_select_invert) {
+                    invertSelection();
+                }
+            }
+        };
+        final Typeface font = getFontMedium();
+        final int[] ids = {R.id.sdl_select_all, R.id.sdl_select_none, R.id.sdl_select_invert};
+        for (int id : ids) {
+            final Button button = (Button) actions.findViewById(id);
+            button.setOnClickListener(listener);
+            if (font != null) {
+                button.setTypeface(font);
+            }
+        }
+        header.addView(actions);
+    }
+
+    private void buildSearch(LayoutInflater inflater, LinearLayout header, ListItemAdapter adapter) {
+        final EditText search = (EditText) inflater.inflate(R.layout.sdl_list_search, header, false);
+        final Typeface font = getFontRegular();
+        if (font != null) {
+            search.setTypeface(font);
+        }
+        if (mFilter == null && !adapter.isLoading()) {
+            // otherwise the filter is created for the loaded items, see setItems()
+            mFilter = createFilter(adapter, getItems());
+        }
+        search.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mSearchQuery = s.toString();
+                if (mFilter != null) {
+                    mFilter.filter(mSearchQuery);
+                }
+            }
+        });
+        header.addView(search);
+    }
+
+    private ItemFilter createFilter(final ListItemAdapter adapter, CharSequence[] items) {
+        final ItemFilter filter = new ItemFilter(items, new ItemFilter.OnFilteredListener() {
+            @Override
+            public void onFiltered(int[] positions) {
+                // rows are rebound with their checked state
+                adapter.setFilteredPositions(positions);
+            }
+        });
+        adapter.setFilter(filter);
+        return filter;
+    }
+
+    /**
+     * @return Number of all the items, filtered out ones included
+     */
+    private int getItemCount() {
+        if (mAdapter instanceof PagedItemAdapter) {
+            return mAdapter.getCount();
+        }
+        if (mAdapter instanceof CursorItemAdapter) {
+            return isLoading() ? 0 : mAdapter.getCount();
+        }
+        final CharSequence[] items = getItems();
+        return items != null ? items.length : 0;
+    }
+
+    private void buildRecyclerList(Builder builder, int itemLayoutId) {
+        final RecyclerView recyclerView = (RecyclerView) builder.getLayoutInflater()
+            .inflate(R.layout.sdl_list_recycler, null, false);
+        recyclerView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.WRAP_CONTENT));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(recyclerView.getContext());
+        // rows about to be scrolled in are created in the idle time between frames
+        layoutManager.setItemPrefetchEnabled(true);
+        recyclerView.setLayoutManager(layoutManager);
+        // changes of the rows don't resize the list, only a different number of items does, see below
+        recyclerView.setHasFixedSize(true);
+
+        final ListItemRecyclerAdapter adapter = new ListItemRecyclerAdapter(getItems(), itemLayoutId,
+            getFontRegular(), getMode(), getCheckedItems());
+        adapter.setOnItemClickListener(new ListItemRecyclerAdapter.OnItemClickListener() {
+            @Override
+            public void onItemClick(int position, boolean checked) {
+                if (getMode() == AbsListView.CHOICE_MODE_MULTIPLE) {
+                    dispatchItemToggled(position, checked);
+                }
+                if (getMode() != AbsListView.CHOICE_MODE_NONE) {
+                    // the adapter has already changed the checked items, they are shared with the arguments
+                    return;
+                }
+                final List<IListDialogListener> listeners = getSingleDialogListeners();
+                for (int i = 0, n = listeners.size(); i < n; i++) {
+                    listeners.get(i).onListItemSelected(adapter.getItem(position), position, mRequestCode);
+                }
+                dismiss();
+            }
+        });
+        adapter.setOnItemsUpdatedListener(new ListItemRecyclerAdapter.OnItemsUpdatedListener() {
+            @Override
+            public void onItemsUpdated(CharSequence[] items, CheckedItemSet checkedItems) {
+                final CharSequence[] oldItems = getItems();
+                getArguments().putCharSequenceArray(ARG_ITEMS, items);
+                setCheckedItems(checkedItems);
+                if (oldItems == null || oldItems.length != items.length) {
+                    // the list has a fixed size, it has to be told that wrapping its items needs a different height
+                    recyclerView.requestLayout();
+                }
+            }
+        });
+        recyclerView.setAdapter(adapter);
+        mRecyclerAdapter = adapter;
+        builder.setView(recyclerView);
+    }
+
+    @LayoutRes
+    private int getItemLayout() {
+        switch (getMode()) {
+            case AbsListView.CHOICE_MODE_MULTIPLE:
+                return R.layout.sdl_list_item_multichoice;
+            case AbsListView.CHOICE_MODE_SINGLE:
+                return R.layout.sdl_list_item_singlechoice;
+            default:
+                return R.layout.sdl_list_item;
+        }
+    }
+
+    // checked state is kept by the fragment and bound by the adapters, not by the choice mode of the ListView
+
     private void buildMultiChoice(Builder builder) {
         builder.setItems(
-            prepareAdapter(R.layout.sdl_list_item_multichoice),
-            asIntArray(getCheckedItems()), AbsListView.CHOICE_MODE_MULTIPLE,
+            prepareAdapter(R.layout.sdl_list_item_multichoice), -1,
             new AdapterView.OnItemClickListener() {
                 @Override
-                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    SparseBooleanArray checkedPositions = ((ListView)parent).getCheckedItemPositions();
-                    setCheckedItems(new SparseBooleanArrayParcelable(checkedPositions));
+                public void onItemClick(AdapterView<?> parent, View view, int filteredPosition, long id) {
+                    final int position = getOriginalPosition(filteredPosition);
+                    final boolean checked = !getCheckedItems().get(position);
+                    mRangeAnchor = position;
+                    setItemChecked(position, checked);
+                    dispatchItemToggled(position, checked);
                 }
             });
+        builder.setOnItemLongClickListener(new AdapterView.OnItemLongClickListener() {
+            @Override
+            public boolean onItemLongClick(AdapterView<?> parent, View view, int filteredPosition, long id) {
+                // like shift-click, the range from the last clicked item gets its state
+                final int anchor = mRangeAnchor >= 0 && mAdapter instanceof ListItemAdapter
+                    ? ((ListItemAdapter) mAdapter).getFilteredPosition(mRangeAnchor) : mRangeAnchor;
+                if (anchor < 0 || anchor >= parent.getCount()) {
+                    return false;
+                }
+                final int from = Math.min(anchor, filteredPosition);
+                final int to = Math.max(anchor, filteredPosition) + 1;
+                final boolean checked = getCheckedItems().get(mRangeAnchor);
+                changeShownItems(from, to, checked ? SELECTION_CHECK : SELECTION_UNCHECK);
+                return true;
+            }
+        });
     }
 
     private void buildSingleChoice(Builder builder) {
         builder.setItems(
-            prepareAdapter(R.layout.sdl_list_item_singlechoice),
-            asIntArray(getCheckedItems()),
-            AbsListView.CHOICE_MODE_SINGLE, new AdapterView.OnItemClickListener() {
+            prepareAdapter(R.layout.sdl_list_item_singlechoice), -1,
+            new AdapterView.OnItemClickListener() {
                 @Override
                 public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    SparseBooleanArray checkedPositions = ((ListView)parent).getCheckedItemPositions();
-                    setCheckedItems(new SparseBooleanArrayParcelable(checkedPositions));
+                    setItemChecked(getOriginalPosition(position), true);
                 }
             });
     }
@@ -142,11 +955,19 @@ public class ListDialogFragment extends BaseDialogFragment {
             prepareAdapter(R.layout.sdl_list_item), -1,
             new AdapterView.OnItemClickListener() {
                 @Override
-                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    for (IListDialogListener listener : getSingleDialogListeners()) {
-                        listener.onListItemSelected(getItems()[position], position, mRequestCode);
-                    }
-                    dismiss();
+                public void onItemClick(AdapterView<?> parent, View view, int filteredPosition, long id) {
+                    final int position = getOriginalPosition(filteredPosition);
+                    dispatchItemId(position);
+                    loadItems(new int[]{position}, new PagedItemAdapter.OnItemsLoadedListener() {
+                        @Override
+                        public void onItemsLoaded(CharSequence[] items) {
+                            final List<IListDialogListener> listeners = getSingleDialogListeners();
+                            for (int i = 0, n = listeners.size(); i < n; i++) {
+                                listeners.get(i).onListItemSelected(items[0], position, mRequestCode);
+                            }
+                            dismiss();
+                        }
+                    });
                 }
             });
     }
@@ -159,23 +980,13 @@ public class ListDialogFragment extends BaseDialogFragment {
             builder.setTitle(title);
         }
 
-        if (mFontRegular != null) {
-            builder.setFontRegular(mFontRegular);
-        }
-        if (mFontMedium != null) {
-            builder.setFontMedium(mFontMedium);
-        }
-
-        if (mIcon != null) {
-            builder.setIcon(mIcon);
-        }
-
         if (!TextUtils.isEmpty(getNegativeButtonText())) {
             builder.setNegativeButton(getNegativeButtonText(), new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    for (ISimpleDialogCancelListener listener : getCancelListeners()) {
-                        listener.onCancelled(mRequestCode);
+                    final List<ISimpleDialogCancelListener> listeners = getCancelListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onCancelled(mRequestCode);
                     }
                     dismiss();
                 }
@@ -190,21 +1001,49 @@ public class ListDialogFragment extends BaseDialogFragment {
                     positiveButtonClickListener = new View.OnClickListener() {
                         @Override
                         public void onClick(View view) {
-                            // prepare multiple results
-                            final int[] checkedPositions = asIntArray(getCheckedItems());
-                            final CharSequence[] items = getItems();
-                            final CharSequence[] checkedValues = new CharSequence[checkedPositions.length];
-                            int i = 0;
-                            for (int checkedPosition : checkedPositions) {
-                                if (checkedPosition >= 0 && checkedPosition < items.length) {
-                                    checkedValues[i++] = items[checkedPosition];
-                                }
+                            // the view of the checked items needs no copy
+                            final ICheckedItems checkedItems = getCheckedItems().asReadOnly();
+                            final List<IMultiChoiceCheckedItemsListener> checkedItemsListeners =
+                                getDialogListeners(IMultiChoiceCheckedItemsListener.class);
+                            for (int i = 0, n = checkedItemsListeners.size(); i < n; i++) {
+                                checkedItemsListeners.get(i).onCheckedItemsSelected(checkedItems, mRequestCode);
                             }
 
-                            for (IMultiChoiceListDialogListener listener : getMutlipleDialogListeners()) {
-                                listener.onListItemsSelected(checkedValues, checkedPositions, mRequestCode);
+                            final List<IMultiChoiceListDialogListener> listeners = getMutlipleDialogListeners();
+                            final List<IMultiChoiceListItemIdListener> idListeners =
+                                getDialogListeners(IMultiChoiceListItemIdListener.class);
+                            if (listeners.isEmpty() && idListeners.isEmpty()) {
+                                // nobody needs the positions, don't copy the selection
+                                dismiss();
+                                return;
                             }
-                            dismiss();
+
+                            // prepare multiple results
+                            final int[] checkedPositions = checkedItems.toArray();
+                            final int count = getItemCount();
+                            // positions are sorted, the ones out of the items are at the end
+                            int valid = checkedPositions.length;
+                            while (valid > 0 && checkedPositions[valid - 1] >= count) {
+                                valid--;
+                            }
+                            final int[] validPositions = valid == checkedPositions.length ? checkedPositions
+                                : Arrays.copyOf(checkedPositions, valid);
+                            dispatchItemIds(validPositions, idListeners);
+                            if (listeners.isEmpty()) {
+                                dismiss();
+                                return;
+                            }
+
+                            loadItems(validPositions, new PagedItemAdapter.OnItemsLoadedListener() {
+                                @Override
+                                public void onItemsLoaded(CharSequence[] items) {
+                                    // values are loaded for the valid positions only, the arrays are parallel
+                                    for (int l = 0, n = listeners.size(); l < n; l++) {
+                                        listeners.get(l).onListItemsSelected(items, validPositions, mRequestCode);
+                                    }
+                                    dismiss();
+                                }
+                            });
                         }
                     };
                     break;
@@ -213,32 +1052,40 @@ public class ListDialogFragment extends BaseDialogFragment {
                         @Override
                         public void onClick(View view) {
                             // prepare single result
-                            int selectedPosition = -1;
-                            final int[] checkedPositions = asIntArray(getCheckedItems());
-                            final CharSequence[] items = getItems();
-                            for (int i : checkedPositions) {
-                                if (i >= 0 && i < items.length) {
-                                    //1st valid value
-                                    selectedPosition = i;
-                                    break;
-                                }
+                            int selectedPosition = getCheckedItems().nextChecked(0);
+                            if (selectedPosition >= getItemCount()) {
+                                selectedPosition = -1;
                             }
 
                             // either item is selected or dialog is cancelled
                             if (selectedPosition != -1) {
-                                for (IListDialogListener listener : getSingleDialogListeners()) {
-                                    listener.onListItemSelected(items[selectedPosition], selectedPosition, mRequestCode);
-                                }
+                                final int position = selectedPosition;
+                                dispatchItemId(position);
+                                loadItems(new int[]{position}, new PagedItemAdapter.OnItemsLoadedListener() {
+                                    @Override
+                                    public void onItemsLoaded(CharSequence[] items) {
+                                        final List<IListDialogListener> listeners = getSingleDialogListeners();
+                                        for (int i = 0, n = listeners.size(); i < n; i++) {
+                                            listeners.get(i).onListItemSelected(items[0], position, mRequestCode);
+                                        }
+                                        dismiss();
+                                    }
+                                });
                             } else {
-                                for (ISimpleDialogCancelListener listener : getCancelListeners()) {
-                                    listener.onCancelled(mRequestCode);
+                                final List<ISimpleDialogCancelListener> listeners = getCancelListeners();
+                                for (int i = 0, n = listeners.size(); i < n; i++) {
+                                    listeners.get(i).onCancelled(mRequestCode);
                                 }
+                                dismiss();
                             }
-                            dismiss();
                         }
                     };
                     break;
             }
+            if (getTreeSource() != null) {
+                // tree dialogs report ids of the checked nodes instead of positions
+                positiveButtonClickListener = createTreeConfirmListener();
+            }
 
             CharSequence positiveButton = getPositiveButtonText();
             if (TextUtils.isEmpty(getPositiveButtonText())) {
@@ -250,7 +1097,13 @@ public class ListDialogFragment extends BaseDialogFragment {
 
         // prepare list and its item click listener
         final CharSequence[] items = getItems();
-        if (items != null && items.length > 0) {
+        if (getTreeSource() != null) {
+            buildTree(builder);
+        } else if (isRecyclerView() && !isSearchable() && !hasSelectionActions() && !isSectioned()
+            && getItemSource() == null && items != null && items.length > 0) {
+            buildRecyclerList(builder, getItemLayout());
+        } else if (getItemSource() != null || hasCursor() || (items != null && items.length > 0)
+            || (items == null && getItemLoader() != null && ItemLoader.get(getItemLoader()) != null)) {
             @ChoiceMode
             final int mode = getMode();
             switch (mode) {
@@ -264,6 +1117,9 @@ public class ListDialogFragment extends BaseDialogFragment {
                     buildNormalChoice(builder);
                     break;
             }
+            if (isSearchable() || hasSelectionActions() || isSectioned()) {
+                buildHeader(builder);
+            }
         }
 
         return builder;
@@ -291,6 +1147,10 @@ public class ListDialogFragment extends BaseDialogFragment {
         return getDialogListeners(IMultiChoiceListDialogListener.class);
     }
 
+    private List<IMultiChoiceListItemToggleListener> getToggleListeners() {
+        return getDialogListeners(IMultiChoiceListItemToggleListener.class);
+    }
+
     private CharSequence getTitle() {
         return getArguments().getCharSequence(ARG_TITLE);
     }
@@ -305,16 +1165,86 @@ public class ListDialogFragment extends BaseDialogFragment {
         return getArguments().getCharSequenceArray(ARG_ITEMS);
     }
 
+    private boolean hasSelectionActions() {
+        return getArguments().getBoolean(ARG_SELECTION_ACTIONS);
+    }
+
+    private boolean isSearchable() {
+        return getArguments().getBoolean(ARG_SEARCHABLE);
+    }
+
+    private boolean isSectioned() {
+        return getArguments().getBoolean(ARG_SECTIONS);
+    }
+
+    private boolean isRecyclerView() {
+        return getArguments().getBoolean(ARG_RECYCLER_VIEW);
+    }
+
+    private String getItemSource() {
+        return getArguments().getString(ARG_ITEM_SOURCE);
+    }
+
+    private String getTreeSource() {
+        return getArguments().getString(ARG_TREE_SOURCE);
+    }
+
+    /**
+     * @return Ids of the opened nodes from the top level
+     */
+    @NonNull
+    private long[] getTreePath() {
+        final long[] path = getArguments().getLongArray(ARG_TREE_PATH);
+        return path != null ? path : new long[0];
+    }
+
     @NonNull
-    private SparseBooleanArrayParcelable getCheckedItems() {
-        SparseBooleanArrayParcelable items = getArguments().getParcelable(ARG_CHECKED_ITEMS);
+    private CharSequence[] getTreePathTitles() {
+        final CharSequence[] titles = getArguments().getCharSequenceArray(ARG_TREE_PATH_TITLES);
+        return titles != null ? titles : new CharSequence[0];
+    }
+
+    private long getTreeParentId() {
+        final long[] path = getTreePath();
+        return path.length > 0 ? path[path.length - 1] : ITreeItemSource.ROOT;
+    }
+
+    /**
+     * @return Checked nodes of a tree kept in the arguments, changes of the set are saved with them
+     */
+    @NonNull
+    private CheckedIdSet getCheckedIds() {
+        CheckedIdSet ids = getArguments().getParcelable(ARG_CHECKED_IDS);
+        if (ids == null) {
+            ids = new CheckedIdSet();
+            getArguments().putParcelable(ARG_CHECKED_IDS, ids);
+        }
+        return ids;
+    }
+
+    private boolean hasCursor() {
+        return getArguments().getParcelable(ARG_CURSOR_URI) != null
+            || getArguments().getString(ARG_CURSOR_SOURCE) != null;
+    }
+
+    private String getItemLoader() {
+        return getArguments().getString(ARG_ITEM_LOADER);
+    }
+
+    /**
+     * @return Checked items kept in the arguments, changes of the set are saved with them
+     */
+    @NonNull
+    private CheckedItemSet getCheckedItems() {
+        CheckedItemSet items = getArguments().getParcelable(ARG_CHECKED_ITEMS);
         if (items == null) {
-            items = new SparseBooleanArrayParcelable();
+            items = new CheckedItemSet();
+            setCheckedItems(items);
         }
         return items;
     }
 
-    private void setCheckedItems(SparseBooleanArrayParcelable checkedItems) {
+    private void setCheckedItems(CheckedItemSet checkedItems) {
         getArguments().putParcelable(ARG_CHECKED_ITEMS, checkedItems);
     }
 
@@ -355,6 +1285,22 @@ public class ListDialogFragment extends BaseDialogFragment {
         private CharSequence title;
 
         private CharSequence[] items;
+        private String itemSource;
+        private boolean recyclerView;
+        private boolean searchable;
+        private boolean selectionActions;
+        private boolean sections;
+        private Bundle itemSourceArgs;
+        private Callable<CharSequence[]> itemLoader;
+        private Uri cursorUri;
+        private String cursorSelection;
+        private String[] cursorSelectionArgs;
+        private String cursorSortOrder;
+        private String cursorSource;
+        private String cursorColumn;
+        private String treeSource;
+        private long[] checkedIds;
+        private Executor itemLoaderExecutor;
 
         @ChoiceMode
         private int mode;
@@ -366,9 +1312,6 @@ public class ListDialogFragment extends BaseDialogFragment {
 
         public SimpleListDialogBuilder(Context context, FragmentManager fragmentManager) {
             super(context, fragmentManager, ListDialogFragment.class);
-            mFontRegular = null;
-            mFontMedium = null;
-            mIcon = null;
         }
 
         @Override
@@ -430,6 +1373,170 @@ public class ListDialogFragment extends BaseDialogFragment {
             return this;
         }
 
+        /**
+         * Shows the items in a RecyclerView instead of a ListView. Rows are bound through view holders, items can
+         * be replaced while the dialog is shown with {@link ListDialogFragment#setItems(CharSequence[])} and only
+         * the changed rows are updated. Not used for items from an item source.
+         *
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setUseRecyclerView(boolean recyclerView) {
+            this.recyclerView = recyclerView;
+            return this;
+        }
+
+        /**
+         * Shows a search field above the items. Items are filtered in the background as the user types, matching
+         * words are highlighted. Listeners still get the original positions of the selected items. Searchable lists
+         * are always shown in a ListView and can't use an item source.
+         *
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setSearchable(boolean searchable) {
+            this.searchable = searchable;
+            return this;
+        }
+
+        /**
+         * Shows "all", "none" and "invert" selection actions above the items of a multi-choice list. When the list
+         * is filtered, "all" and "invert" change only the shown items. Long click on an item gives the range from the
+         * last clicked item the same state. Lists with the actions are always shown in a ListView.
+         *
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setSelectionActions(boolean selectionActions) {
+            this.selectionActions = selectionActions;
+            return this;
+        }
+
+        /**
+         * Divides alphabetically sorted items into sections by their first letters, which are compared by the rules
+         * of the current locale. The list gets a fast scroll thumb with the letters and the letter of the first
+         * visible item is shown above the list. Sections are found in the background, the dialog is shown without
+         * them until they are ready. Sectioned lists are always shown in a ListView, cursors and item sources don't
+         * have sections.
+         *
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setSections(boolean sections) {
+            this.sections = sections;
+            return this;
+        }
+
+        /**
+         * Items are loaded page by page from an {@link IItemSource} while the list is scrolled, instead of being
+         * kept in the arguments of the dialog. Use for long lists.
+         *
+         * @param name Name the factory of the source is registered under, see {@link ItemSources}
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setItemSource(String name) {
+            return setItemSource(name, null);
+        }
+
+        /**
+         * @param args Small arguments passed to the factory of the source, e.g. a query
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setItemSource(String name, Bundle args) {
+            this.itemSource = name;
+            this.itemSourceArgs = args;
+            return this;
+        }
+
+        /**
+         * Shows the dialog right away and loads the items in the background, a progress row is shown in the list
+         * until they are loaded. Items checked meanwhile stay checked. The load is cancelled when the dialog is
+         * dismissed, but not when it is recreated after a configuration change. Lists with loaded items are always
+         * shown in a ListView.
+         *
+         * @param loader   Called on the executor, returns the items
+         * @param executor Executor of the load, e.g. {@link android.os.AsyncTask#THREAD_POOL_EXECUTOR}
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setItems(Callable<CharSequence[]> loader, Executor executor) {
+            this.itemLoader = loader;
+            this.itemLoaderExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Shows rows of a content provider. Texts of the rows are copied from the cursor straight into the row
+         * views, the list is queried again in the background when the provider notifies a change of the uri.
+         * Implement {@link IListItemIdListener} or {@link IMultiChoiceListItemIdListener} to get the row ids of the
+         * selected items. Cursor lists are always shown in a ListView and can't be searchable.
+         *
+         * @param column Column of the texts of the items
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setCursor(Uri uri, String column) {
+            return setCursor(uri, column, null, null, null);
+        }
+
+        /**
+         * @see #setCursor(Uri, String)
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setCursor(Uri uri, String column, String selection, String[] selectionArgs,
+                                                 String sortOrder) {
+            this.cursorUri = uri;
+            this.cursorColumn = column;
+            this.cursorSelection = selection;
+            this.cursorSelectionArgs = selectionArgs;
+            this.cursorSortOrder = sortOrder;
+            return this;
+        }
+
+        /**
+         * Shows rows of a cursor from an {@link ICursorSource}, e.g. of an SQLite query, the same way as
+         * {@link #setCursor(Uri, String)}.
+         *
+         * @param name   Name the source is registered under, see {@link ItemSources}
+         * @param args   Small arguments passed to the source, e.g. a query
+         * @param column Column of the texts of the items
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setCursorSource(String name, Bundle args, String column) {
+            this.cursorSource = name;
+            this.itemSourceArgs = args;
+            this.cursorColumn = column;
+            return this;
+        }
+
+        /**
+         * Shows a tree of nodes from an {@link ITreeItemSource} in the list, clicking a node with children opens its
+         * level in place of the current one. Children are loaded in the background the first time their node is
+         * opened and kept for the next time. Only nodes without children can be selected, implement
+         * {@link ITreeListDialogListener} to get them. Trees are always shown in a ListView, without search, sections
+         * and selection actions.
+         *
+         * @param name Name the factory of the source is registered under, see {@link ItemSources}
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setTreeSource(String name) {
+            return setTreeSource(name, null);
+        }
+
+        /**
+         * @param args Small arguments passed to the factory of the source
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setTreeSource(String name, Bundle args) {
+            this.treeSource = name;
+            this.itemSourceArgs = args;
+            return this;
+        }
+
+        /**
+         * Ids of the nodes of a tree that should be pre-selected, see {@link #setTreeSource(String)}
+         *
+         * @since 2.4.0
+         */
+        public SimpleListDialogBuilder setCheckedIds(long[] ids) {
+            this.checkedIds = ids;
+            return this;
+        }
+
         public SimpleListDialogBuilder setConfirmButtonText(CharSequence text) {
             this.confirmButtonText = text;
             return this;
@@ -450,18 +1557,33 @@ public class ListDialogFragment extends BaseDialogFragment {
             return this;
         }
 
+        /**
+         * @deprecated The font is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setFontRegular(String)} or {@link #setFontRegular(int)}.
+         */
+        @Deprecated
         public SimpleListDialogBuilder setFontRegular(Typeface font) {
-            mFontRegular = font;
+            setInstanceFontRegular(font);
             return this;
         }
 
+        /**
+         * @deprecated The font is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setFontMedium(String)} or {@link #setFontMedium(int)}.
+         */
+        @Deprecated
         public SimpleListDialogBuilder setFontMedium(Typeface font) {
-            mFontMedium = font;
+            setInstanceFontMedium(font);
             return this;
         }
 
+        /**
+         * @deprecated The bitmap is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setIcon(int)} or {@link #setIcon(android.net.Uri)}.
+         */
+        @Deprecated
         public SimpleListDialogBuilder setIcon(Bitmap icon) {
-            mIcon = icon;
+            setInstanceIcon(icon);
             return this;
         }
 
@@ -478,12 +1600,26 @@ public class ListDialogFragment extends BaseDialogFragment {
             args.putCharSequence(ARG_NEGATIVE_BUTTON, cancelButtonText);
 
             args.putCharSequenceArray(ARG_ITEMS, items);
-
-            SparseBooleanArrayParcelable sparseArray = new SparseBooleanArrayParcelable();
-            for (int index = 0; checkedItems != null && index < checkedItems.length; index++) {
-                sparseArray.put(checkedItems[index], true);
+            args.putString(ARG_ITEM_SOURCE, itemSource);
+            args.putBoolean(ARG_RECYCLER_VIEW, recyclerView);
+            args.putBoolean(ARG_SEARCHABLE, searchable);
+            args.putBoolean(ARG_SELECTION_ACTIONS, selectionActions);
+            args.putBoolean(ARG_SECTIONS, sections);
+            args.putBundle(ARG_ITEM_SOURCE_ARGS, itemSourceArgs);
+            args.putParcelable(ARG_CURSOR_URI, cursorUri);
+            args.putString(ARG_CURSOR_SELECTION, cursorSelection);
+            args.putStringArray(ARG_CURSOR_SELECTION_ARGS, cursorSelectionArgs);
+            args.putString(ARG_CURSOR_SORT_ORDER, cursorSortOrder);
+            args.putString(ARG_CURSOR_SOURCE, cursorSource);
+            args.putString(ARG_CURSOR_COLUMN, cursorColumn);
+            args.putString(ARG_TREE_SOURCE, treeSource);
+            args.putParcelable(ARG_CHECKED_IDS, CheckedIdSet.of(checkedIds));
+            if (items == null && itemLoader != null) {
+                // the loader can't be kept in the arguments, the dialog finds the load by its key
+                args.putString(ARG_ITEM_LOADER, ItemLoader.start(itemLoader, itemLoaderExecutor));
             }
-            args.putParcelable(ARG_CHECKED_ITEMS, sparseArray);
+
+            args.putParcelable(ARG_CHECKED_ITEMS, CheckedItemSet.of(checkedItems));
             args.putInt(ARG_MODE, mode);
 
 
@@ -30,10 +30,6 @@ public class ProgressDialogFragment extends BaseDialogFragment {
     protected final static String ARG_MESSAGE = "message";
     protected final static String ARG_TITLE = "title";
 
-    static Typeface mFontRegular = null;
-    static Typeface mFontMedium = null;
-    static Bitmap mIcon = null;
-
     public static ProgressDialogBuilder createBuilder(Context context, FragmentManager fragmentManager) {
         return new ProgressDialogBuilder(context, fragmentManager);
     }
@@ -44,17 +40,14 @@ public class ProgressDialogFragment extends BaseDialogFragment {
         final View view = inflater.inflate(R.layout.sdl_progress, null, false);
         final TextView tvMessage = (TextView) view.findViewById(R.id.sdl_message);
 
-        if (mFontRegular != null) {
-            builder.setFontRegular(mFontRegular);
-            tvMessage.setTypeface(mFontRegular);
-        }
-        if (mFontMedium != null) {
-            builder.setFontMedium(mFontMedium);
-            tvMessage.setTypeface(mFontMedium);
+        // fonts and icon from arguments are already set to the builder
+        final Typeface fontRegular = getFontRegular();
+        if (fontRegular != null) {
+            tvMessage.setTypeface(fontRegular);
         }
-
-        if (mIcon != null) {
-            builder.setIcon(mIcon);
+        final Typeface fontMedium = getFontMedium();
+        if (fontMedium != null) {
+            tvMessage.setTypeface(fontMedium);
         }
 
         tvMessage.setText(getArguments().getCharSequence(ARG_MESSAGE));
@@ -133,9 +126,6 @@ public class ProgressDialogFragment extends BaseDialogFragment {
 
         protected ProgressDialogBuilder(Context context, FragmentManager fragmentManager) {
             super(context, fragmentManager, ProgressDialogFragment.class);
-            mFontRegular = null;
-            mFontMedium = null;
-            mIcon = null;
         }
 
         @Override
@@ -164,18 +154,33 @@ public class ProgressDialogFragment extends BaseDialogFragment {
             return this;
         }
 
+        /**
+         * @deprecated The font is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setFontRegular(String)} or {@link #setFontRegular(int)}.
+         */
+        @Deprecated
         public ProgressDialogBuilder setFontRegular(Typeface font) {
-            mFontRegular = font;
+            setInstanceFontRegular(font);
             return this;
         }
 
+        /**
+         * @deprecated The font is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setFontMedium(String)} or {@link #setFontMedium(int)}.
+         */
+        @Deprecated
         public ProgressDialogBuilder setFontMedium(Typeface font) {
-            mFontMedium = font;
+            setInstanceFontMedium(font);
             return this;
         }
 
+        /**
+         * @deprecated The bitmap is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setIcon(int)} or {@link #setIcon(android.net.Uri)}.
+         */
+        @Deprecated
         public ProgressDialogBuilder setIcon(Bitmap icon) {
-            mIcon = icon;
+            setInstanceIcon(icon);
             return this;
         }
 
@@ -54,12 +54,6 @@ public class SimpleDialogFragment extends BaseDialogFragment {
     protected final static String ARG_NEGATIVE_BUTTON = "negative_button";
     protected final static String ARG_NEUTRAL_BUTTON = "neutral_button";
 
-    static Typeface mFontRegular = null;
-    static Typeface mFontMedium = null;
-    static Bitmap mIcon = null;
-    static boolean mFullWidth = false;
-    static boolean mFullHeight = false;
-
     public static SimpleDialogBuilder createBuilder(Context context, FragmentManager fragmentManager) {
         return new SimpleDialogBuilder(context, fragmentManager, SimpleDialogFragment.class);
     }
@@ -91,8 +85,9 @@ public class SimpleDialogFragment extends BaseDialogFragment {
             builder.setPositiveButton(positiveButtonText, new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    for (IPositiveButtonDialogListener listener : getPositiveButtonDialogListeners()) {
-                        listener.onPositiveButtonClicked(mRequestCode);
+                    final List<IPositiveButtonDialogListener> listeners = getPositiveButtonDialogListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onPositiveButtonClicked(mRequestCode);
                     }
                     dismiss();
                 }
@@ -104,8 +99,9 @@ public class SimpleDialogFragment extends BaseDialogFragment {
             builder.setNegativeButton(negativeButtonText, new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    for (INegativeButtonDialogListener listener : getNegativeButtonDialogListeners()) {
-                        listener.onNegativeButtonClicked(mRequestCode);
+                    final List<INegativeButtonDialogListener> listeners = getNegativeButtonDialogListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onNegativeButtonClicked(mRequestCode);
                     }
                     dismiss();
                 }
@@ -117,35 +113,15 @@ public class SimpleDialogFragment extends BaseDialogFragment {
             builder.setNeutralButton(neutralButtonText, new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    for (INeutralButtonDialogListener listener : getNeutralButtonDialogListeners()) {
-                        listener.onNeutralButtonClicked(mRequestCode);
+                    final List<INeutralButtonDialogListener> listeners = getNeutralButtonDialogListeners();
+                    for (int i = 0, n = listeners.size(); i < n; i++) {
+                        listeners.get(i).onNeutralButtonClicked(mRequestCode);
                     }
                     dismiss();
                 }
             });
         }
 
-        final Typeface fontRegular = getFontRegular();
-        if (fontRegular != null) {
-            builder.setFontRegular(fontRegular);
-        }
-
-        final Typeface fontMedium = getFontMedium();
-        if (fontMedium != null) {
-            builder.setFontMedium(fontMedium);
-        }
-
-        final Bitmap icon = getIcon();
-        if (icon != null) {
-            builder.setIcon(icon);
-        }
-
-        final boolean fullWidth = getFullWidth();
-        builder.setFullWidth(fullWidth);
-
-        final boolean fullHeight = getFullHeight();
-        builder.setFullHeight(fullHeight);
-
         return builder;
     }
 
@@ -235,24 +211,12 @@ public class SimpleDialogFragment extends BaseDialogFragment {
             getNeutralBtnView().setText(message);
     }
 
-    public Typeface getFontRegular() {
-        return mFontRegular;
-    }
-
-    public Typeface getFontMedium() {
-        return mFontMedium;
-    }
-
-    public Bitmap getIcon() {
-        return mIcon;
-    }
-
     public boolean getFullWidth() {
-        return mFullWidth;
+        return getArguments().getBoolean(BaseDialogBuilder.ARG_FULL_WIDTH);
     }
 
     public boolean getFullHeight() {
-        return mFullHeight;
+        return getArguments().getBoolean(BaseDialogBuilder.ARG_FULL_HEIGHT);
     }
 
     /**
@@ -353,11 +317,6 @@ public class SimpleDialogFragment extends BaseDialogFragment {
 
         protected SimpleDialogBuilder(Context context, FragmentManager fragmentManager, Class<? extends SimpleDialogFragment> clazz) {
             super(context, fragmentManager, clazz);
-            mFontRegular = null;
-            mFontMedium = null;
-            mIcon = null;
-            mFullWidth = false;
-            mFullHeight = false;
         }
 
         @Override
@@ -381,31 +340,6 @@ public class SimpleDialogFragment extends BaseDialogFragment {
             return this;
         }
 
-        public SimpleDialogBuilder setFontRegular(Typeface font) {
-            mFontRegular = font;
-            return this;
-        }
-
-        public SimpleDialogBuilder setFontMedium(Typeface font) {
-            mFontMedium = font;
-            return this;
-        }
-
-        public SimpleDialogBuilder setIcon(Bitmap bitmap) {
-            mIcon = bitmap;
-            return this;
-        }
-
-        public SimpleDialogBuilder setFullWidth(boolean set) {
-            mFullWidth = set;
-            return this;
-        }
-
-        public SimpleDialogBuilder setFullHeight(boolean set) {
-            mFullHeight = set;
-            return this;
-        }
-
         /**
          * Allow to set resource string with HTML formatting and bind %s,%i.
          * This is workaround for https://code.google.com/p/android/issues/detail?id=2923
@@ -450,6 +384,46 @@ public class SimpleDialogFragment extends BaseDialogFragment {
             return this;
         }
 
+        /**
+         * @deprecated The font is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setFontRegular(String)} or {@link #setFontRegular(int)}.
+         */
+        @Deprecated
+        public SimpleDialogBuilder setFontRegular(Typeface font) {
+            setInstanceFontRegular(font);
+            return this;
+        }
+
+        /**
+         * @deprecated The font is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setFontMedium(String)} or {@link #setFontMedium(int)}.
+         */
+        @Deprecated
+        public SimpleDialogBuilder setFontMedium(Typeface font) {
+            setInstanceFontMedium(font);
+            return this;
+        }
+
+        /**
+         * @deprecated The bitmap is kept only by the created instance of the dialog and is lost when the dialog is
+         * recreated, e.g. after process death. Use {@link #setIcon(int)} or {@link #setIcon(android.net.Uri)}.
+         */
+        @Deprecated
+        public SimpleDialogBuilder setIcon(Bitmap bitmap) {
+            setInstanceIcon(bitmap);
+            return this;
+        }
+
+        @Override
+        public SimpleDialogBuilder setFullWidth(boolean set) {
+            return super.setFullWidth(set);
+        }
+
+        @Override
+        public SimpleDialogBuilder setFullHeight(boolean set) {
+            return super.setFullHeight(set);
+        }
+
         public SimpleDialogBuilder onDialogShown(final ViewTreeObserver.OnGlobalLayoutListener l)
         {
             return this;
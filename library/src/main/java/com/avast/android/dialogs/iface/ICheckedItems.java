@@ -0,0 +1,26 @@
+package com.avast.android.dialogs.iface;
+
+/**
+ * Read-only view of the checked items of a list dialog, positions are the original positions of the items.
+ *
+ * @since 2.4.0
+ */
+public interface ICheckedItems {
+
+    public boolean get(int position);
+
+    /**
+     * @return Number of the checked items
+     */
+    public int size();
+
+    /**
+     * @return The first checked position at or after the given one, -1 if there is none
+     */
+    public int nextChecked(int from);
+
+    /**
+     * @return Sorted positions of the checked items, a new array
+     */
+    public int[] toArray();
+}
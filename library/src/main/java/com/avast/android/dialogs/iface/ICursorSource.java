@@ -0,0 +1,25 @@
+package com.avast.android.dialogs.iface;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Bundle;
+
+/**
+ * Source of a cursor with items for ListDialogFragment, e.g. a query of an SQLite database. Registered under a name
+ * with {@link com.avast.android.dialogs.util.ItemSources#registerCursorSource(String, ICursorSource)}, the same way
+ * as {@link IItemSource}.
+ *
+ * @since 2.4.0
+ */
+public interface ICursorSource {
+
+    /**
+     * Called on a background thread when the dialog is shown and again whenever the content of the previous cursor
+     * changes. Set a notification uri on the cursor to have the list requeried when the data change.
+     *
+     * @param context Application context
+     * @param args    Arguments passed to the dialog builder together with the name of the source, can be null
+     * @return Cursor with the {@link android.provider.BaseColumns#_ID} column and the column of the item texts
+     */
+    public Cursor query(Context context, Bundle args);
+}
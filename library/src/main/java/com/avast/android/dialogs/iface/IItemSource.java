@@ -0,0 +1,41 @@
+package com.avast.android.dialogs.iface;
+
+import android.content.Context;
+import android.os.Bundle;
+
+/**
+ * Source of items for ListDialogFragment which are loaded page by page while the list is scrolled, instead of being
+ * passed to the dialog in its arguments. All methods are called from a background thread, one call at a time.
+ * <p>
+ * Sources are created by a {@link Factory} registered under a name with
+ * {@link com.avast.android.dialogs.util.ItemSources#register(String, Factory)}. The dialog keeps only the name, so
+ * register the factory early enough (e.g. in {@code Application.onCreate()}) to have it when the dialog is restored.
+ *
+ * @since 2.4.0
+ */
+public interface IItemSource {
+
+    /**
+     * @return Number of the items
+     */
+    public int getCount();
+
+    /**
+     * Loads a page of items.
+     *
+     * @param offset Position of the first item of the page
+     * @param titles Array to be filled with the texts of the items, its length is the size of the page
+     * @param ids    Array to be filled with keys of the items, which don't change when other items are added or removed
+     * @return Number of the loaded items, less than the size of the page at the end of the list
+     */
+    public int loadPage(int offset, CharSequence[] titles, long[] ids);
+
+    interface Factory {
+
+        /**
+         * @param context Application context
+         * @param args    Arguments passed to the dialog builder together with the name of the source, can be null
+         */
+        public IItemSource create(Context context, Bundle args);
+    }
+}
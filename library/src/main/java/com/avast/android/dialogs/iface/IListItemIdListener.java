@@ -0,0 +1,16 @@
+package com.avast.android.dialogs.iface;
+
+/**
+ * Interface for ListDialogFragment in modes: CHOICE_MODE_NONE, CHOICE_MODE_SINGLE
+ * Implement it in Activity or Fragment to get the row id of the selected item of a cursor list, along with
+ * {@link IListDialogListener}.
+ *
+ * @since 2.4.0
+ */
+public interface IListItemIdListener {
+
+    /**
+     * @param id Value of the {@link android.provider.BaseColumns#_ID} column of the row
+     */
+    public void onListItemSelected(int position, long id, int requestCode);
+}
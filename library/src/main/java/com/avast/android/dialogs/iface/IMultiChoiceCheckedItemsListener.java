@@ -0,0 +1,16 @@
+package com.avast.android.dialogs.iface;
+
+/**
+ * Interface for ListDialogFragment in modes: CHOICE_MODE_MULTIPLE
+ * Implement it in Activity or Fragment to get the checked items when confirmed, without copying the texts and
+ * positions of all of them as {@link IMultiChoiceListDialogListener} does.
+ *
+ * @since 2.4.0
+ */
+public interface IMultiChoiceCheckedItemsListener {
+
+    /**
+     * @param checkedItems Checked items, the view is valid only during the call
+     */
+    public void onCheckedItemsSelected(ICheckedItems checkedItems, int requestCode);
+}
@@ -0,0 +1,17 @@
+package com.avast.android.dialogs.iface;
+
+/**
+ * Interface for ListDialogFragment in modes: CHOICE_MODE_MULTIPLE
+ * Implement it in Activity or Fragment to get the row ids of the checked items of a cursor list when confirmed.
+ *
+ * @since 2.4.0
+ */
+public interface IMultiChoiceListItemIdListener {
+
+    /**
+     * @param positions Sorted positions of the checked items
+     * @param ids       Values of the {@link android.provider.BaseColumns#_ID} column of the rows, in the order of
+     *                  the positions
+     */
+    public void onListItemsSelected(int[] positions, long[] ids, int requestCode);
+}
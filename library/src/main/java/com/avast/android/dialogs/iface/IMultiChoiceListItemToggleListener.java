@@ -0,0 +1,22 @@
+package com.avast.android.dialogs.iface;
+
+/**
+ * Interface for ListDialogFragment in modes: CHOICE_MODE_MULTIPLE
+ * Implement it in Activity or Fragment to react to every change of the checked items while the dialog is shown.
+ *
+ * @since 2.4.0
+ */
+public interface IMultiChoiceListItemToggleListener {
+
+    /**
+     * Item was checked or unchecked by a click.
+     */
+    public void onItemToggled(int position, boolean checked, int requestCode);
+
+    /**
+     * More items were changed at once by a selection action or a range selection.
+     *
+     * @param checkedItems All checked items, the view is valid only during the call
+     */
+    public void onItemsToggled(ICheckedItems checkedItems, int requestCode);
+}
@@ -0,0 +1,39 @@
+package com.avast.android.dialogs.iface;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.avast.android.dialogs.util.TreeLevel;
+
+/**
+ * Source of the nodes of a tree list dialog, children of a node are loaded when the node is opened. All methods are
+ * called from a background thread, one call at a time.
+ * <p>
+ * Sources are created by a {@link Factory} registered under a name with
+ * {@link com.avast.android.dialogs.util.ItemSources#registerTreeSource(String, Factory)}, the same way as
+ * {@link IItemSource}.
+ *
+ * @since 2.4.0
+ */
+public interface ITreeItemSource {
+
+    /**
+     * Id of the parent of the top level nodes.
+     */
+    public static final long ROOT = Long.MIN_VALUE;
+
+    /**
+     * @param parentId Id of the opened node or {@link #ROOT}
+     * @param children Level to be filled with the children of the node
+     */
+    public void loadChildren(long parentId, TreeLevel children);
+
+    interface Factory {
+
+        /**
+         * @param context Application context
+         * @param args    Arguments passed to the dialog builder together with the name of the source, can be null
+         */
+        public ITreeItemSource create(Context context, Bundle args);
+    }
+}
@@ -0,0 +1,24 @@
+package com.avast.android.dialogs.iface;
+
+/**
+ * Interface for ListDialogFragment showing a tree of an {@link ITreeItemSource}.
+ * Implement it in Activity or Fragment to get the selected nodes.
+ *
+ * @since 2.4.0
+ */
+public interface ITreeListDialogListener {
+
+    /**
+     * Called in modes: CHOICE_MODE_NONE, CHOICE_MODE_SINGLE
+     *
+     * @param title Title of the node, null if its level is not loaded anymore
+     */
+    public void onTreeItemSelected(CharSequence title, long id, int requestCode);
+
+    /**
+     * Called in mode: CHOICE_MODE_MULTIPLE
+     *
+     * @param ids Sorted ids of the checked nodes, from all the levels
+     */
+    public void onTreeItemsSelected(long[] ids, int requestCode);
+}
@@ -6,15 +6,20 @@ import android.view.View;
 import android.widget.Checkable;
 import android.widget.LinearLayout;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 public class CheckableLinearLayout extends LinearLayout implements Checkable {
     private static final int[] CHECKED_STATE_SET = {android.R.attr.state_checked};
 
-    private Set<Checkable> mCheckablesSet = new HashSet<>();
+    private static final Checkable[] NO_CHECKABLES = new Checkable[0];
+
+    private Checkable[] mCheckables = NO_CHECKABLES;
     private boolean mChecked;
 
+    // drawable state of the checked row, merged again only when the state of the view itself changes
+    private int[] mCheckedBaseState;
+    private int[] mCheckedState;
+
     public CheckableLinearLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
     }
@@ -24,12 +29,15 @@ public class CheckableLinearLayout extends LinearLayout implements Checkable {
         super.onFinishInflate();
         // find checkable items
         int childCount = getChildCount();
+        int count = 0;
+        Checkable[] checkables = new Checkable[childCount];
         for (int i = 0; i < childCount; ++i) {
             View v = getChildAt(i);
             if (v instanceof Checkable) {
-                mCheckablesSet.add((Checkable) v);
+                checkables[count++] = (Checkable) v;
             }
         }
+        mCheckables = count == childCount ? checkables : Arrays.copyOf(checkables, count);
     }
 
     @Override
@@ -43,8 +51,8 @@ public class CheckableLinearLayout extends LinearLayout implements Checkable {
             return;
         }
         this.mChecked = checked;
-        for (Checkable checkable : mCheckablesSet) {
-            checkable.setChecked(checked);
+        for (int i = 0; i < mCheckables.length; i++) {
+            mCheckables[i].setChecked(checked);
         }
         refreshDrawableState();
     }
@@ -56,10 +64,21 @@ public class CheckableLinearLayout extends LinearLayout implements Checkable {
 
 
     public int[] onCreateDrawableState(int extraSpace) {
-        final int[] drawableState = super.onCreateDrawableState(extraSpace + 1);
-        if (isChecked()) {
+        if (!isChecked()) {
+            return super.onCreateDrawableState(extraSpace);
+        }
+        if (extraSpace != 0) {
+            final int[] drawableState = super.onCreateDrawableState(extraSpace + 1);
             mergeDrawableStates(drawableState, CHECKED_STATE_SET);
+            return drawableState;
+        }
+        // without extra space the view returns shared state sets, so the merged one can be reused for the same set
+        final int[] baseState = super.onCreateDrawableState(0);
+        if (baseState != mCheckedBaseState) {
+            mCheckedBaseState = baseState;
+            mCheckedState = Arrays.copyOf(baseState, baseState.length + 1);
+            mCheckedState[baseState.length] = android.R.attr.state_checked;
         }
-        return drawableState;
+        return mCheckedState;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.avast.android.dialogs.util;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Arrays;
+
+/**
+ * Ids of the checked nodes of a tree list, kept in a sorted array of longs. Lookups are binary searches, the set is
+ * parceled as the array.
+ *
+ * @since 2.4.0
+ */
+public class CheckedIdSet implements Parcelable {
+
+    public static final Parcelable.Creator<CheckedIdSet> CREATOR = new Parcelable.Creator<CheckedIdSet>() {
+        @Override
+        public CheckedIdSet createFromParcel(Parcel source) {
+            final CheckedIdSet set = new CheckedIdSet();
+            set.mIds = source.createLongArray();
+            set.mSize = set.mIds.length;
+            return set;
+        }
+
+        @Override
+        public CheckedIdSet[] newArray(int size) {
+            return new CheckedIdSet[size];
+        }
+    };
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] mIds = EMPTY;
+    private int mSize;
+
+    public CheckedIdSet() {
+    }
+
+    /**
+     * @param ids Ids of the checked nodes in any order
+     */
+    public static CheckedIdSet of(long[] ids) {
+        final CheckedIdSet set = new CheckedIdSet();
+        if (ids != null) {
+            for (long id : ids) {
+                set.set(id, true);
+            }
+        }
+        return set;
+    }
+
+    public boolean get(long id) {
+        return Arrays.binarySearch(mIds, 0, mSize, id) >= 0;
+    }
+
+    public void set(long id, boolean checked) {
+        final int index = Arrays.binarySearch(mIds, 0, mSize, id);
+        if (checked && index < 0) {
+            final int insertion = -index - 1;
+            if (mSize == mIds.length) {
+                mIds = Arrays.copyOf(mIds, Math.max(8, mSize * 2));
+            }
+            System.arraycopy(mIds, insertion, mIds, insertion + 1, mSize - insertion);
+            mIds[insertion] = id;
+            mSize++;
+        } else if (!checked && index >= 0) {
+            System.arraycopy(mIds, index + 1, mIds, index, mSize - index - 1);
+            mSize--;
+        }
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return The id at the index of the sorted ids
+     */
+    public long getAt(int index) {
+        return mIds[index];
+    }
+
+    /**
+     * @return Sorted copy of the ids
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(mIds, mSize);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLongArray(toArray());
+    }
+}
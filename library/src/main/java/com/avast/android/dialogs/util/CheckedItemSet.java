@@ -0,0 +1,232 @@
+package com.avast.android.dialogs.util;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.avast.android.dialogs.iface.ICheckedItems;
+
+import java.util.Arrays;
+
+/**
+ * Positions of the checked items of a list, one bit per item. Checking an item only sets a bit, the sorted positions
+ * are read straight from the bits and the set is parceled as the packed words.
+ *
+ * @since 2.4.0
+ */
+public class CheckedItemSet implements ICheckedItems, Parcelable {
+
+    public static final Parcelable.Creator<CheckedItemSet> CREATOR = new Parcelable.Creator<CheckedItemSet>() {
+        @Override
+        public CheckedItemSet createFromParcel(Parcel source) {
+            final CheckedItemSet set = new CheckedItemSet();
+            set.mWords = source.createLongArray();
+            set.mCount = source.readInt();
+            return set;
+        }
+
+        @Override
+        public CheckedItemSet[] newArray(int size) {
+            return new CheckedItemSet[size];
+        }
+    };
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] mWords = EMPTY;
+    private int mCount;
+
+    public CheckedItemSet() {
+    }
+
+    public CheckedItemSet(CheckedItemSet other) {
+        mWords = other.mWords.clone();
+        mCount = other.mCount;
+    }
+
+    /**
+     * @param positions Positions of the checked items, negative ones are ignored
+     */
+    public static CheckedItemSet of(int[] positions) {
+        final CheckedItemSet set = new CheckedItemSet();
+        if (positions != null) {
+            for (int position : positions) {
+                if (position >= 0) {
+                    set.set(position, true);
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * @return View of the set which can't be used to change it
+     */
+    public ICheckedItems asReadOnly() {
+        return new ICheckedItems() {
+            @Override
+            public boolean get(int position) {
+                return CheckedItemSet.this.get(position);
+            }
+
+            @Override
+            public int size() {
+                return CheckedItemSet.this.size();
+            }
+
+            @Override
+            public int nextChecked(int from) {
+                return CheckedItemSet.this.nextChecked(from);
+            }
+
+            @Override
+            public int[] toArray() {
+                return CheckedItemSet.this.toArray();
+            }
+        };
+    }
+
+    @Override
+    public boolean get(int position) {
+        final int word = position >>> 6;
+        return word < mWords.length && (mWords[word] & (1L << position)) != 0;
+    }
+
+    public void set(int position, boolean checked) {
+        final int word = position >>> 6;
+        if (word >= mWords.length) {
+            if (!checked) {
+                return;
+            }
+            ensureCapacity(position + 1);
+        }
+        final long bit = 1L << position;
+        final boolean wasChecked = (mWords[word] & bit) != 0;
+        if (checked && !wasChecked) {
+            mWords[word] |= bit;
+            mCount++;
+        } else if (!checked && wasChecked) {
+            mWords[word] &= ~bit;
+            mCount--;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(mWords, 0);
+        mCount = 0;
+    }
+
+    /**
+     * Checks or unchecks items from {@code from} (inclusive) to {@code to} (exclusive), a word at a time.
+     */
+    public void setRange(int from, int to, boolean checked) {
+        if (!checked) {
+            // nothing is checked beyond the words
+            to = Math.min(to, mWords.length << 6);
+        }
+        if (from >= to) {
+            return;
+        }
+        ensureCapacity(to);
+        final int lastWord = (to - 1) >>> 6;
+        for (int word = from >>> 6; word <= lastWord; word++) {
+            final long mask = rangeMask(word, from, to);
+            final long bits = mWords[word];
+            final long changed = checked ? bits | mask : bits & ~mask;
+            mCount += Long.bitCount(changed) - Long.bitCount(bits);
+            mWords[word] = changed;
+        }
+    }
+
+    /**
+     * Checks the unchecked items from {@code from} (inclusive) to {@code to} (exclusive) and unchecks the checked
+     * ones, a word at a time.
+     */
+    public void invertRange(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        ensureCapacity(to);
+        final int lastWord = (to - 1) >>> 6;
+        for (int word = from >>> 6; word <= lastWord; word++) {
+            final long bits = mWords[word];
+            final long changed = bits ^ rangeMask(word, from, to);
+            mCount += Long.bitCount(changed) - Long.bitCount(bits);
+            mWords[word] = changed;
+        }
+    }
+
+    /**
+     * @return Bits of the word which are in the range
+     */
+    private static long rangeMask(int word, int from, int to) {
+        long mask = -1L;
+        if (word == from >>> 6) {
+            mask &= -1L << from;
+        }
+        if (word == (to - 1) >>> 6) {
+            mask &= -1L >>> -to;
+        }
+        return mask;
+    }
+
+    private void ensureCapacity(int size) {
+        final int words = (size + 63) >>> 6;
+        if (words > mWords.length) {
+            mWords = Arrays.copyOf(mWords, Math.max(words, mWords.length * 2));
+        }
+    }
+
+    @Override
+    public int size() {
+        return mCount;
+    }
+
+    @Override
+    public int nextChecked(int from) {
+        int word = from >>> 6;
+        if (from < 0 || word >= mWords.length) {
+            return -1;
+        }
+        long bits = mWords[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == mWords.length) {
+                return -1;
+            }
+            bits = mWords[word];
+        }
+    }
+
+    @Override
+    public int[] toArray() {
+        final int[] positions = new int[mCount];
+        int i = 0;
+        for (int word = 0; word < mWords.length; word++) {
+            long bits = mWords[word];
+            while (bits != 0) {
+                positions[i++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                // clear the lowest set bit
+                bits &= bits - 1;
+            }
+        }
+        return positions;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        // trailing empty words are not written
+        int length = mWords.length;
+        while (length > 0 && mWords[length - 1] == 0) {
+            length--;
+        }
+        dest.writeLongArray(length == mWords.length ? mWords : Arrays.copyOf(mWords, length));
+        dest.writeInt(mCount);
+    }
+}
@@ -0,0 +1,258 @@
+package com.avast.android.dialogs.util;
+
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.graphics.Typeface;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.BaseColumns;
+import android.support.annotation.MainThread;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import com.avast.android.dialogs.R;
+
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+
+/**
+ * Adapter for items of {@link com.avast.android.dialogs.fragment.ListDialogFragment} read from a cursor. Texts of
+ * the rows are copied from the cursor window straight into the row views, no strings are created for them.
+ * <p>
+ * The cursor is queried in the background, a progress row is shown until it's ready. When the content of the cursor
+ * changes, it is queried again in the background and swapped in, checked items stay checked by their row ids.
+ *
+ * @since 2.4.0
+ */
+public class CursorItemAdapter extends BaseAdapter {
+
+    private static final String TAG = "CursorItemAdapter";
+
+    private final Callable<Cursor> mQuery;
+    private final String mColumn;
+    private final int mItemLayoutId;
+    private final Typeface mFont;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ContentObserver mObserver = new ContentObserver(mHandler) {
+        @Override
+        public boolean deliverSelfNotifications() {
+            return true;
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            requery();
+        }
+    };
+    private CheckedItemSet mCheckedItems;
+    private Cursor mCursor;
+    private int mColumnIndex;
+    // row ids by position, read in the background with the count, null until the first query is done
+    private long[] mIds;
+    private boolean mQuerying;
+    private boolean mRequeryPending;
+    private volatile boolean mReleased;
+
+    /**
+     * @param query  Called on a background thread, returns a cursor with the {@link BaseColumns#_ID} column
+     * @param column Column of the texts of the items
+     * @param font   Font of the items or null to keep the font from the item layout
+     */
+    public CursorItemAdapter(Callable<Cursor> query, String column, int itemLayoutId, Typeface font) {
+        mQuery = query;
+        mColumn = column;
+        mItemLayoutId = itemLayoutId;
+        mFont = font;
+        requery();
+    }
+
+    /**
+     * @param checkedItems Checked items, rows are checked according to it when bound. Positions in the set are
+     *                     moved when the cursor is queried again.
+     */
+    public void setCheckedItems(CheckedItemSet checkedItems) {
+        mCheckedItems = checkedItems;
+    }
+
+    /**
+     * @return True if the progress row is shown because the cursor isn't queried yet
+     */
+    public boolean isLoading() {
+        return mIds == null;
+    }
+
+    @Override
+    public int getCount() {
+        return mIds != null ? mIds.length : 1;
+    }
+
+    /**
+     * @return Text of the item, creates a string so don't call it for every row
+     */
+    @Override
+    public CharSequence getItem(int position) {
+        if (mCursor == null || !mCursor.moveToPosition(position)) {
+            return null;
+        }
+        return mCursor.getString(mColumnIndex);
+    }
+
+    /**
+     * @return Value of the {@link BaseColumns#_ID} column of the row
+     */
+    @Override
+    public long getItemId(int position) {
+        return mIds != null ? mIds[position] : -1;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return 2;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mIds == null ? 1 : 0;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return mIds != null;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return mIds != null;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (mIds == null) {
+            return convertView != null ? convertView
+                : LayoutInflater.from(parent.getContext()).inflate(R.layout.sdl_list_progress, parent, false);
+        }
+        if (convertView == null) {
+            convertView = ListItemAdapter.newView(parent, mItemLayoutId, mFont);
+        }
+        final ListItemAdapter.ViewHolder holder = (ListItemAdapter.ViewHolder) convertView.getTag();
+        if (mCursor.moveToPosition(position)) {
+            holder.bind(mCursor, mColumnIndex);
+        }
+        holder.setChecked(mCheckedItems != null && mCheckedItems.get(position));
+        return convertView;
+    }
+
+    /**
+     * Stops watching the cursor and closes it, results of pending queries are dropped. Call when the dialog is gone.
+     */
+    @MainThread
+    public void release() {
+        // a pending result isn't dropped from the handler, it has to close its cursor
+        mReleased = true;
+        if (mCursor != null) {
+            mCursor.unregisterContentObserver(mObserver);
+            mCursor.close();
+        }
+    }
+
+    /**
+     * Queries the cursor in the background, once more after the running query if the content changes meanwhile.
+     */
+    private void requery() {
+        if (mQuerying) {
+            mRequeryPending = true;
+            return;
+        }
+        mQuerying = true;
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mReleased) {
+                    return;
+                }
+                Cursor cursor = null;
+                long[] ids = null;
+                int columnIndex = -1;
+                try {
+                    cursor = mQuery.call();
+                    if (cursor != null) {
+                        columnIndex = cursor.getColumnIndexOrThrow(mColumn);
+                        final int idIndex = cursor.getColumnIndexOrThrow(BaseColumns._ID);
+                        // the count and the ids fill the cursor window here rather than on the main thread
+                        ids = new long[cursor.getCount()];
+                        for (int i = 0; i < ids.length && cursor.moveToPosition(i); i++) {
+                            ids[i] = cursor.getLong(idIndex);
+                        }
+                    }
+                } catch (Exception e) {
+                    Log.w(TAG, "Can't query items", e);
+                    if (cursor != null) {
+                        cursor.close();
+                        cursor = null;
+                    }
+                }
+                final Cursor result = cursor;
+                final long[] resultIds = result != null ? ids : new long[0];
+                final int resultColumnIndex = columnIndex;
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mQuerying = false;
+                        if (mReleased) {
+                            if (result != null) {
+                                result.close();
+                            }
+                            return;
+                        }
+                        swapCursor(result, resultColumnIndex, resultIds);
+                        if (mRequeryPending) {
+                            mRequeryPending = false;
+                            requery();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void swapCursor(Cursor cursor, int columnIndex, long[] ids) {
+        final Cursor oldCursor = mCursor;
+        final long[] oldIds = mIds;
+        if (oldCursor != null) {
+            oldCursor.unregisterContentObserver(mObserver);
+        }
+        mCursor = cursor;
+        mColumnIndex = columnIndex;
+        mIds = ids;
+        if (cursor != null) {
+            cursor.registerContentObserver(mObserver);
+        }
+        if (oldIds != null && mCheckedItems != null && mCheckedItems.size() > 0) {
+            // rows may have moved, the same rows are checked on their new positions
+            final HashSet<Long> checkedIds = new HashSet<>();
+            for (int i = mCheckedItems.nextChecked(0); i >= 0 && i < oldIds.length;
+                 i = mCheckedItems.nextChecked(i + 1)) {
+                checkedIds.add(oldIds[i]);
+            }
+            mCheckedItems.clear();
+            for (int i = 0; i < ids.length; i++) {
+                if (checkedIds.contains(ids[i])) {
+                    mCheckedItems.set(i, true);
+                }
+            }
+        }
+        notifyDataSetChanged();
+        if (oldCursor != null) {
+            oldCursor.close();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.avast.android.dialogs.util;
+
+import android.annotation.TargetApi;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.MainThread;
+import android.support.v4.util.LruCache;
+import android.support.v7.content.res.AppCompatResources;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Loads dialog icons. Dialogs keep only the resource id or Uri of their icon, bitmaps are decoded in the background,
+ * downsampled to the size they are shown in and shared through a cache of limited size, so dialogs don't pin memory
+ * once they are gone.
+ * <p>
+ * Returned drawable has a fixed size from the start, the icon is drawn into it once it's loaded. Showing the icon
+ * doesn't change the size of the view, so it doesn't cause another layout.
+ *
+ * @since 2.4.0
+ */
+public class IconLoader {
+
+    private static final String TAG = "IconLoader";
+    private static final String ASSET_PATH = "/android_asset/";
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    // icons are small, 1/32 of the heap is plenty
+    private static final LruCache<String, Entry> sCache =
+            new LruCache<String, Entry>((int) Math.min(Runtime.getRuntime().maxMemory() / 32, Integer.MAX_VALUE)) {
+                @Override
+                protected int sizeOf(String key, Entry value) {
+                    return value.bitmap.getByteCount();
+                }
+
+                @Override
+                protected void entryRemoved(boolean evicted, String key, Entry oldValue, Entry newValue) {
+                    oldValue.cached = false;
+                    oldValue.recycleIfUnused();
+                }
+            };
+    // bitmaps which are neither cached nor shown, their memory is reused by the next decoding
+    private static final ArrayList<SoftReference<Bitmap>> sReusable = new ArrayList<>();
+    // drawables waiting for an icon which is being decoded, only accessed from the main thread
+    private static final HashMap<String, ArrayList<IconDrawable>> sWaiting = new HashMap<>();
+
+    /**
+     * Loads icon from resources. Resource can be a bitmap or a vector drawable.
+     *
+     * @param size Height of the icon in pixels, usually the line height of the title
+     * @param tint Color the icon is tinted with or 0 to keep the colors of the icon
+     */
+    @MainThread
+    public static Drawable load(Context context, @DrawableRes int iconRes, int size, @ColorInt int tint) {
+        return load(context, iconRes, null, size, tint);
+    }
+
+    /**
+     * Loads icon from a Uri. Apart from the schemes supported by {@link ContentResolver}, assets can be loaded
+     * via {@code file:///android_asset/path}.
+     *
+     * @param size Height of the icon in pixels, usually the line height of the title
+     * @param tint Color the icon is tinted with or 0 to keep the colors of the icon
+     */
+    @MainThread
+    public static Drawable load(Context context, Uri iconUri, int size, @ColorInt int tint) {
+        return load(context, 0, iconUri, size, tint);
+    }
+
+    /**
+     * Tells that the drawable returned by {@code load()} is not shown anymore, its bitmap can be reused when it drops
+     * out of the cache.
+     */
+    @MainThread
+    public static void release(Drawable drawable) {
+        if (drawable instanceof IconDrawable) {
+            ((IconDrawable) drawable).release();
+        }
+    }
+
+    /**
+     * Drops all cached icons, e.g. when the app is trimming memory.
+     */
+    @MainThread
+    public static void clearCache() {
+        sCache.evictAll();
+        synchronized (sReusable) {
+            sReusable.clear();
+        }
+    }
+
+    private static Drawable load(Context context, final int iconRes, final Uri iconUri, final int size,
+                                 final int tint) {
+        final String key = (iconRes != 0 ? "res:" + iconRes : iconUri.toString()) + '@' + size + '#'
+                + Integer.toHexString(tint);
+        final IconDrawable drawable = new IconDrawable(size);
+        final Entry entry = sCache.get(key);
+        if (entry != null) {
+            drawable.setEntry(entry);
+            return drawable;
+        }
+
+        ArrayList<IconDrawable> waiting = sWaiting.get(key);
+        if (waiting != null) {
+            // the same icon is already being decoded
+            waiting.add(drawable);
+            return drawable;
+        }
+        waiting = new ArrayList<>(1);
+        waiting.add(drawable);
+        sWaiting.put(key, waiting);
+
+        final Context appContext = context.getApplicationContext();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = decode(appContext, iconRes, iconUri, size, tint);
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(key, bitmap);
+                    }
+                });
+            }
+        });
+        return drawable;
+    }
+
+    private static void deliver(String key, Bitmap bitmap) {
+        final ArrayList<IconDrawable> waiting = sWaiting.remove(key);
+        if (bitmap == null) {
+            // placeholder stays
+            return;
+        }
+        final Entry entry = new Entry(bitmap);
+        entry.cached = true;
+        sCache.put(key, entry);
+        if (waiting != null) {
+            for (int i = 0, n = waiting.size(); i < n; i++) {
+                waiting.get(i).setEntry(entry);
+            }
+        }
+    }
+
+    //
+    // Decoding, runs in the background
+    //
+
+    private static Bitmap decode(Context context, int iconRes, Uri iconUri, int size, int tint) {
+        Bitmap bitmap;
+        try {
+            final BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            decodeStream(context, iconRes, iconUri, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                // not a bitmap, e.g. vector drawable
+                bitmap = iconRes != 0 ? rasterize(context, iconRes, size) : null;
+            } else {
+                bitmap = decodeSampled(context, iconRes, iconUri, options, size);
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Can't load icon " + (iconRes != 0 ? iconRes : iconUri), e);
+            return null;
+        }
+        if (bitmap != null && tint != 0) {
+            // bitmaps are decoded as mutable, so they are tinted in place
+            new Canvas(bitmap).drawColor(tint, PorterDuff.Mode.SRC_IN);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decodes the bitmap at least as big as the requested size with inSampleSize and scales it to the exact size
+     * while decoding.
+     */
+    private static Bitmap decodeSampled(Context context, int iconRes, Uri iconUri, BitmapFactory.Options options,
+                                        int size) throws IOException {
+        int sampleSize = 1;
+        while (options.outHeight / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        final int sampledHeight = options.outHeight / sampleSize;
+        final int sampledWidth = options.outWidth / sampleSize;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inMutable = true;
+        int height = sampledHeight;
+        int width = sampledWidth;
+        if (sampledHeight > size) {
+            options.inScaled = true;
+            options.inDensity = sampledHeight;
+            options.inTargetDensity = size;
+            height = size;
+            width = (int) Math.ceil((double) sampledWidth * size / sampledHeight);
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            options.inBitmap = takeReusable(width * height * 4);
+            if (options.inBitmap != null) {
+                try {
+                    return decodeStream(context, iconRes, iconUri, options);
+                } catch (IllegalArgumentException e) {
+                    // the reused bitmap doesn't fit after all
+                    options.inBitmap = null;
+                }
+            }
+        }
+        return decodeStream(context, iconRes, iconUri, options);
+    }
+
+    private static Bitmap decodeStream(Context context, int iconRes, Uri iconUri, BitmapFactory.Options options)
+            throws IOException {
+        final InputStream input = openStream(context, iconRes, iconUri);
+        if (input == null) {
+            throw new IOException("Can't open " + iconUri);
+        }
+        try {
+            return BitmapFactory.decodeStream(input, null, options);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static InputStream openStream(Context context, int iconRes, Uri iconUri) throws IOException {
+        if (iconRes != 0) {
+            return context.getResources().openRawResource(iconRes);
+        }
+        final String path = iconUri.getPath();
+        if (ContentResolver.SCHEME_FILE.equals(iconUri.getScheme()) && path != null && path.startsWith(ASSET_PATH)) {
+            return context.getAssets().open(path.substring(ASSET_PATH.length()));
+        }
+        return context.getContentResolver().openInputStream(iconUri);
+    }
+
+    private static Bitmap rasterize(Context context, int iconRes, int size) {
+        final Drawable drawable = AppCompatResources.getDrawable(context, iconRes);
+        if (drawable == null) {
+            return null;
+        }
+        final int intrinsicWidth = drawable.getIntrinsicWidth();
+        final int intrinsicHeight = drawable.getIntrinsicHeight();
+        final int width = intrinsicWidth > 0 && intrinsicHeight > 0 ? size * intrinsicWidth / intrinsicHeight : size;
+        final Bitmap bitmap = Bitmap.createBitmap(Math.max(1, width), size, Bitmap.Config.ARGB_8888);
+        drawable.mutate().setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static Bitmap takeReusable(int byteCount) {
+        synchronized (sReusable) {
+            final Iterator<SoftReference<Bitmap>> iterator = sReusable.iterator();
+            while (iterator.hasNext()) {
+                final Bitmap bitmap = iterator.next().get();
+                if (bitmap == null || bitmap.isRecycled()) {
+                    iterator.remove();
+                } else if (bitmap.getAllocationByteCount() >= byteCount
+                        && bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+                    iterator.remove();
+                    return bitmap;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cached bitmap with the number of drawables showing it.
+     */
+    private static class Entry {
+
+        final Bitmap bitmap;
+        boolean cached;
+        int displayCount;
+
+        Entry(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        void recycleIfUnused() {
+            if (!cached && displayCount == 0 && bitmap.isMutable()) {
+                synchronized (sReusable) {
+                    sReusable.add(new SoftReference<>(bitmap));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drawable of a fixed size which shows nothing until the icon is loaded. The icon is fitted into its bounds.
+     */
+    private static class IconDrawable extends Drawable {
+
+        private final int mSize;
+        private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private final Rect mDestination = new Rect();
+        private Entry mEntry;
+        private boolean mReleased;
+
+        IconDrawable(int size) {
+            mSize = size;
+        }
+
+        void setEntry(Entry entry) {
+            if (mReleased) {
+                return;
+            }
+            mEntry = entry;
+            entry.displayCount++;
+            invalidateSelf();
+        }
+
+        void release() {
+            mReleased = true;
+            if (mEntry != null) {
+                mEntry.displayCount--;
+                mEntry.recycleIfUnused();
+                mEntry = null;
+                invalidateSelf();
+            }
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (mEntry == null) {
+                return;
+            }
+            final Bitmap bitmap = mEntry.bitmap;
+            final Rect bounds = getBounds();
+            final float scale = Math.min((float) bounds.width() / bitmap.getWidth(),
+                    (float) bounds.height() / bitmap.getHeight());
+            final int width = Math.round(bitmap.getWidth() * scale);
+            final int height = Math.round(bitmap.getHeight() * scale);
+            final int left = bounds.left + (bounds.width() - width) / 2;
+            final int top = bounds.top + (bounds.height() - height) / 2;
+            mDestination.set(left, top, left + width, top + height);
+            canvas.drawBitmap(bitmap, null, mDestination, mPaint);
+        }
+
+        @Override
+        public int getIntrinsicWidth() {
+            return mSize;
+        }
+
+        @Override
+        public int getIntrinsicHeight() {
+            return mSize;
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+            mPaint.setColorFilter(colorFilter);
+            invalidateSelf();
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
+}
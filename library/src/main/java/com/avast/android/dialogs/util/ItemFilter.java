@@ -0,0 +1,348 @@
+package com.avast.android.dialogs.util;
+
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+import android.util.SparseArray;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filters items of a list dialog by a search query in the background. An item matches if every word of the query
+ * is a prefix of some word of the item, case and accents are ignored.
+ * <p>
+ * Index of the normalized words of all items is built once in the background when the filter is created. A query
+ * which extends the previous one only narrows the previous result, other queries are looked up in the index.
+ * Queries replaced by a newer one before they are done are cancelled.
+ *
+ * @since 2.4.0
+ */
+public class ItemFilter {
+
+    private static final int[] CANCELLED = new int[0];
+
+    // queries wait for the index and run one at a time, the newest one wins
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    static {
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public interface OnFilteredListener {
+
+        /**
+         * Called on the main thread with the result of the latest query.
+         *
+         * @param positions Sorted positions of the matching items, null if the query is empty and all items match
+         */
+        public void onFiltered(int[] positions);
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final CharSequence[] mItems;
+    private final OnFilteredListener mListener;
+    private final AtomicInteger mGeneration = new AtomicInteger();
+    private volatile Index mIndex;
+    private volatile boolean mReleased;
+
+    // used on the executor thread only
+    private String mLastQuery;
+    private int[] mLastResult;
+
+    // used on the main thread only
+    private String[] mTokens = new String[0];
+    private final SparseArray<CharSequence> mHighlighted = new SparseArray<>();
+
+    public ItemFilter(final CharSequence[] items, OnFilteredListener listener) {
+        mItems = items;
+        mListener = listener;
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mReleased) {
+                    mIndex = new Index(items);
+                }
+            }
+        });
+    }
+
+    /**
+     * Filters the items, the listener is called when done unless another query comes first.
+     */
+    @MainThread
+    public void filter(CharSequence query) {
+        final String normalized = normalizeQuery(query);
+        final int generation = mGeneration.incrementAndGet();
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mReleased || generation != mGeneration.get()) {
+                    // stale, a newer query is queued
+                    return;
+                }
+                final int[] result = search(normalized, generation);
+                if (result == CANCELLED) {
+                    return;
+                }
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mReleased && generation == mGeneration.get()) {
+                            mTokens = normalized.isEmpty() ? new String[0] : normalized.split(" ");
+                            mHighlighted.clear();
+                            mListener.onFiltered(result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return The item with the words matching the current query highlighted, highlighted texts are cached until
+     * the query changes
+     */
+    @MainThread
+    public CharSequence highlight(int position) {
+        final CharSequence item = mItems[position];
+        final Index index = mIndex;
+        if (mTokens.length == 0 || index == null || item == null) {
+            return item;
+        }
+        CharSequence highlighted = mHighlighted.get(position);
+        if (highlighted == null) {
+            final SpannableString text = new SpannableString(item);
+            for (String token : mTokens) {
+                // normalized text has the same length as the item, offsets are the same
+                final int start = index.findWord(position, token);
+                if (start >= 0) {
+                    text.setSpan(new StyleSpan(Typeface.BOLD), start, start + token.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+            }
+            highlighted = text;
+            mHighlighted.put(position, highlighted);
+        }
+        return highlighted;
+    }
+
+    /**
+     * Stops filtering, pending results are dropped.
+     */
+    @MainThread
+    public void release() {
+        mReleased = true;
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Runs on the executor thread.
+     *
+     * @return Matching positions, null for all items or {@link #CANCELLED} if a newer query came meanwhile
+     */
+    private int[] search(String query, int generation) {
+        if (query.isEmpty()) {
+            mLastQuery = query;
+            mLastResult = null;
+            return null;
+        }
+        final String[] tokens = query.split(" ");
+        final int[] candidates;
+        if (mLastResult != null && query.startsWith(mLastQuery)) {
+            // every word of the longer query is at least as specific, only the previous matches can match
+            candidates = mLastResult;
+        } else {
+            candidates = mIndex.lookup(tokens[0]);
+        }
+        final int[] matches = new int[candidates.length];
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if ((i & 0xff) == 0 && generation != mGeneration.get()) {
+                return CANCELLED;
+            }
+            if (mIndex.matches(candidates[i], tokens)) {
+                matches[count++] = candidates[i];
+            }
+        }
+        final int[] result = count == matches.length ? matches : Arrays.copyOf(matches, count);
+        mLastQuery = query;
+        mLastResult = result;
+        return result;
+    }
+
+    /**
+     * Lower case without accents, one character for every character of the text so offsets of matches are the same
+     * in the original text.
+     */
+    static String normalize(CharSequence text) {
+        final int length = text.length();
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                chars[i] = Character.toLowerCase(c);
+            } else {
+                // decomposed character starts with its base letter, accents follow
+                final String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                chars[i] = Character.toLowerCase(decomposed.charAt(0));
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return Normalized words of the query separated by single spaces
+     */
+    private static String normalizeQuery(CharSequence query) {
+        final String normalized = normalize(query != null ? query : "");
+        final StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            final char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            } else if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+                builder.append(' ');
+            }
+        }
+        if (builder.length() > 0 && builder.charAt(builder.length() - 1) == ' ') {
+            // "new " is the same query as "new" and "new york" still extends it
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Normalized words of the items sorted for prefix lookups.
+     */
+    private static final class Index {
+
+        final String[] texts;
+        final int[][] wordStarts;
+        final String[] words;
+        final int[] wordItems;
+
+        Index(CharSequence[] items) {
+            texts = new String[items.length];
+            wordStarts = new int[items.length][];
+            int wordCount = 0;
+            final int[] starts = new int[64];
+            for (int i = 0; i < items.length; i++) {
+                texts[i] = items[i] != null ? normalize(items[i]) : "";
+                wordStarts[i] = findWords(texts[i], starts);
+                wordCount += wordStarts[i].length;
+            }
+
+            final Word[] sorted = new Word[wordCount];
+            int w = 0;
+            for (int i = 0; i < items.length; i++) {
+                for (int start : wordStarts[i]) {
+                    sorted[w++] = new Word(texts[i].substring(start, wordEnd(texts[i], start)), i);
+                }
+            }
+            Arrays.sort(sorted);
+            words = new String[wordCount];
+            wordItems = new int[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = sorted[i].text;
+                wordItems[i] = sorted[i].item;
+            }
+        }
+
+        /**
+         * @return Sorted positions of the items with a word starting with the prefix
+         */
+        int[] lookup(String prefix) {
+            int low = 0;
+            int high = words.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (words[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            final BitSet found = new BitSet(texts.length);
+            for (int i = low; i < words.length && words[i].startsWith(prefix); i++) {
+                found.set(wordItems[i]);
+            }
+            final int[] positions = new int[found.cardinality()];
+            for (int i = found.nextSetBit(0), j = 0; i >= 0; i = found.nextSetBit(i + 1)) {
+                positions[j++] = i;
+            }
+            return positions;
+        }
+
+        boolean matches(int item, String[] tokens) {
+            for (String token : tokens) {
+                if (findWord(item, token) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return Offset of the first word of the item starting with the token or -1
+         */
+        int findWord(int item, String token) {
+            final String text = texts[item];
+            for (int start : wordStarts[item]) {
+                if (text.startsWith(token, start)) {
+                    return start;
+                }
+            }
+            return -1;
+        }
+
+        private static int[] findWords(String text, int[] buffer) {
+            int count = 0;
+            int[] starts = buffer;
+            for (int i = 0; i < text.length(); i++) {
+                if (Character.isLetterOrDigit(text.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = i;
+                }
+            }
+            return Arrays.copyOf(starts, count);
+        }
+
+        private static int wordEnd(String text, int start) {
+            int end = start;
+            while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+    }
+
+    private static final class Word implements Comparable<Word> {
+
+        final String text;
+        final int item;
+
+        Word(String text, int item) {
+            this.text = text;
+            this.item = item;
+        }
+
+        @Override
+        public int compareTo(Word other) {
+            return text.compareTo(other.text);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.avast.android.dialogs.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Loading of the items of a list dialog which is shown before the items are ready. Loads are kept under a key, so
+ * the dialog recreated after a configuration change gets the result of the load started for the original one.
+ * <p>
+ * A dialog {@link #claim() claims} the load while it exists. A load nobody claims for {@link #CLAIM_TIMEOUT_MS},
+ * e.g. because its dialog was never shown or wasn't recreated, is cancelled and forgotten.
+ *
+ * @since 2.4.0
+ */
+public final class ItemLoader {
+
+    /**
+     * How long a load is kept without being claimed by a dialog.
+     */
+    public static final long CLAIM_TIMEOUT_MS = 10000;
+
+    private static final String TAG = "ItemLoader";
+    private static final HashMap<String, ItemLoader> sLoaders = new HashMap<>();
+
+    public interface OnLoadedListener {
+
+        /**
+         * @param items Loaded items, empty if the load failed
+         */
+        public void onLoaded(CharSequence[] items);
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final String mKey;
+    private final FutureTask<CharSequence[]> mTask;
+    private final Runnable mExpiry = new Runnable() {
+        @Override
+        public void run() {
+            Log.w(TAG, "Load " + mKey + " was not claimed by any dialog");
+            cancel();
+        }
+    };
+    private CharSequence[] mItems;
+    private OnLoadedListener mListener;
+
+    private ItemLoader(String key, final Callable<CharSequence[]> loader) {
+        mKey = key;
+        mTask = new FutureTask<CharSequence[]>(loader) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                CharSequence[] items;
+                try {
+                    items = get();
+                } catch (Exception e) {
+                    Log.w(TAG, "Can't load items", e);
+                    items = null;
+                }
+                final CharSequence[] result = items != null ? items : new CharSequence[0];
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onLoaded(result);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Starts loading of the items.
+     *
+     * @return Key of the load
+     */
+    @MainThread
+    public static String start(Callable<CharSequence[]> loader, Executor executor) {
+        final String key = UUID.randomUUID().toString();
+        final ItemLoader itemLoader = new ItemLoader(key, loader);
+        sLoaders.put(key, itemLoader);
+        // expires unless the dialog claims it
+        itemLoader.release();
+        executor.execute(itemLoader.mTask);
+        return key;
+    }
+
+    /**
+     * @return The load or null if it was cancelled, its result was taken or the process was restarted since it was
+     * started
+     */
+    @MainThread
+    public static ItemLoader get(String key) {
+        return sLoaders.get(key);
+    }
+
+    /**
+     * @param listener Called on the main thread when the items are loaded, right away if they are loaded already.
+     *                 The result is delivered only once and the load is forgotten then.
+     */
+    @MainThread
+    public void setListener(OnLoadedListener listener) {
+        mListener = listener;
+        if (mItems != null && listener != null) {
+            deliver();
+        }
+    }
+
+    /**
+     * Keeps the load while the dialog using it exists.
+     */
+    @MainThread
+    public void claim() {
+        mHandler.removeCallbacks(mExpiry);
+    }
+
+    /**
+     * Releases the claim, e.g. when the dialog is destroyed to be recreated. The load is cancelled unless it's
+     * claimed again in {@link #CLAIM_TIMEOUT_MS}.
+     */
+    @MainThread
+    public void release() {
+        mHandler.removeCallbacks(mExpiry);
+        mHandler.postDelayed(mExpiry, CLAIM_TIMEOUT_MS);
+    }
+
+    /**
+     * Interrupts the load, its result is never delivered.
+     */
+    @MainThread
+    public void cancel() {
+        mTask.cancel(true);
+        mListener = null;
+        mHandler.removeCallbacks(mExpiry);
+        sLoaders.remove(mKey);
+    }
+
+    private void onLoaded(CharSequence[] items) {
+        if (!sLoaders.containsKey(mKey)) {
+            // cancelled meanwhile
+            return;
+        }
+        mItems = items;
+        if (mListener != null) {
+            deliver();
+        }
+    }
+
+    private void deliver() {
+        sLoaders.remove(mKey);
+        mHandler.removeCallbacks(mExpiry);
+        final OnLoadedListener listener = mListener;
+        mListener = null;
+        listener.onLoaded(mItems);
+    }
+}
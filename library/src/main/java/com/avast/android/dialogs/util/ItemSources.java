@@ -0,0 +1,87 @@
+package com.avast.android.dialogs.util;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.avast.android.dialogs.iface.ICursorSource;
+import com.avast.android.dialogs.iface.IItemSource;
+import com.avast.android.dialogs.iface.ITreeItemSource;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the factories of {@link IItemSource}s and {@link ITreeItemSource}s and of the {@link ICursorSource}s
+ * used by list dialogs.
+ *
+ * @since 2.4.0
+ */
+public final class ItemSources {
+
+    private static final ConcurrentHashMap<String, IItemSource.Factory> sFactories = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ICursorSource> sCursorSources = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ITreeItemSource.Factory> sTreeFactories =
+            new ConcurrentHashMap<>();
+
+    private ItemSources() {
+    }
+
+    public static void register(String name, IItemSource.Factory factory) {
+        sFactories.put(name, factory);
+    }
+
+    public static void unregister(String name) {
+        sFactories.remove(name);
+    }
+
+    /**
+     * @throws IllegalStateException If there is no factory registered under the name
+     */
+    public static IItemSource create(Context context, String name, Bundle args) {
+        final IItemSource.Factory factory = sFactories.get(name);
+        if (factory == null) {
+            throw new IllegalStateException("No item source registered as " + name
+                    + ", register it in Application.onCreate() to have it after the process is restored");
+        }
+        return factory.create(context.getApplicationContext(), args);
+    }
+
+    public static void registerCursorSource(String name, ICursorSource source) {
+        sCursorSources.put(name, source);
+    }
+
+    public static void unregisterCursorSource(String name) {
+        sCursorSources.remove(name);
+    }
+
+    /**
+     * @throws IllegalStateException If there is no cursor source registered under the name
+     */
+    public static ICursorSource getCursorSource(String name) {
+        final ICursorSource source = sCursorSources.get(name);
+        if (source == null) {
+            throw new IllegalStateException("No cursor source registered as " + name
+                    + ", register it in Application.onCreate() to have it after the process is restored");
+        }
+        return source;
+    }
+
+    public static void registerTreeSource(String name, ITreeItemSource.Factory factory) {
+        sTreeFactories.put(name, factory);
+    }
+
+    public static void unregisterTreeSource(String name) {
+        sTreeFactories.remove(name);
+    }
+
+    /**
+     * @throws IllegalStateException If there is no tree source registered under the name
+     */
+    public static ITreeItemSource createTreeSource(Context context, String name, Bundle args) {
+        final ITreeItemSource.Factory factory = sTreeFactories.get(name);
+        if (factory == null) {
+            throw new IllegalStateException("No tree source registered as " + name
+                    + ", register it in Application.onCreate() to have it after the process is restored");
+        }
+        return factory.create(context.getApplicationContext(), args);
+    }
+}
@@ -0,0 +1,256 @@
+package com.avast.android.dialogs.util;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.graphics.Typeface;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Checkable;
+import android.widget.TextView;
+
+import com.avast.android.dialogs.R;
+
+import java.util.Arrays;
+
+/**
+ * Adapter for items of {@link com.avast.android.dialogs.fragment.ListDialogFragment}. Item layout has to contain
+ * a TextView with id {@code sdl_text}.
+ * <p>
+ * Items can be filtered with an {@link ItemFilter}, positions of the adapter then differ from the original positions
+ * of the items, see {@link #getOriginalPosition(int)}.
+ */
+public class ListItemAdapter extends BaseAdapter {
+
+    private CharSequence[] mItems;
+    private final int mItemLayoutId;
+    private final Typeface mFont;
+    private ItemFilter mFilter;
+    private CheckedItemSet mCheckedItems;
+    // original positions of the shown items, null if all are shown
+    private int[] mPositions;
+    private boolean mLoading;
+
+    /**
+     * @param font Font of the items or null to keep the font from the item layout
+     */
+    public ListItemAdapter(CharSequence[] items, int itemLayoutId, Typeface font) {
+        mItems = items;
+        mItemLayoutId = itemLayoutId;
+        mFont = font;
+    }
+
+    /**
+     * Replaces the items, positions of the checked items stay the same. Filtered items are shown all again.
+     *
+     * @since 2.4.0
+     */
+    public void setItems(CharSequence[] items) {
+        mItems = items;
+        mPositions = null;
+        mLoading = false;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Shows a single progress row instead of the items until {@link #setItems(CharSequence[])} is called.
+     *
+     * @since 2.4.0
+     */
+    public void setLoading(boolean loading) {
+        mLoading = loading;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @return True if the progress row is shown instead of the items
+     * @since 2.4.0
+     */
+    public boolean isLoading() {
+        return mLoading;
+    }
+
+    /**
+     * @param checkedItems Checked items by their original positions, rows are checked according to it when bound
+     * @since 2.4.0
+     */
+    public void setCheckedItems(CheckedItemSet checkedItems) {
+        mCheckedItems = checkedItems;
+    }
+
+    /**
+     * @param filter Filter highlighting the matches in the shown items
+     * @since 2.4.0
+     */
+    public void setFilter(ItemFilter filter) {
+        mFilter = filter;
+    }
+
+    /**
+     * Shows only the given items.
+     *
+     * @param positions Sorted original positions of the items to show, null to show all
+     * @since 2.4.0
+     */
+    public void setFilteredPositions(int[] positions) {
+        mPositions = positions;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @return True if only some of the items are shown
+     * @since 2.4.0
+     */
+    public boolean isFiltered() {
+        return mPositions != null;
+    }
+
+    /**
+     * @return Position of the item in the items passed to the adapter
+     * @since 2.4.0
+     */
+    public int getOriginalPosition(int position) {
+        return mPositions != null ? mPositions[position] : position;
+    }
+
+    /**
+     * @return Position of the item in the adapter or -1 if the item is filtered out
+     * @since 2.4.0
+     */
+    public int getFilteredPosition(int originalPosition) {
+        if (mPositions == null) {
+            return originalPosition < getCount() ? originalPosition : -1;
+        }
+        final int position = Arrays.binarySearch(mPositions, originalPosition);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * @return Position of the first shown item whose original position is at least the given one, the count if
+     * there is none
+     */
+    int getFilteredPositionFrom(int originalPosition) {
+        if (mPositions == null) {
+            return Math.min(originalPosition, getCount());
+        }
+        final int position = Arrays.binarySearch(mPositions, originalPosition);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    @Override
+    public int getCount() {
+        if (mLoading) {
+            return 1;
+        }
+        if (mPositions != null) {
+            return mPositions.length;
+        }
+        return mItems != null ? mItems.length : 0;
+    }
+
+    @Override
+    public CharSequence getItem(int position) {
+        return mLoading ? null : mItems[getOriginalPosition(position)];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mLoading ? -1 : getOriginalPosition(position);
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        // the number of types is read only when the adapter is set, the progress row has its own type
+        return 2;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mLoading ? 1 : 0;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return !mLoading;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return !mLoading;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (mLoading) {
+            return convertView != null ? convertView
+                : LayoutInflater.from(parent.getContext()).inflate(R.layout.sdl_list_progress, parent, false);
+        }
+        if (convertView == null) {
+            convertView = newView(parent, mItemLayoutId, mFont);
+        }
+        final int originalPosition = getOriginalPosition(position);
+        final ViewHolder holder = (ViewHolder) convertView.getTag();
+        holder.bind(mFilter != null ? mFilter.highlight(originalPosition) : mItems[originalPosition]);
+        holder.setChecked(mCheckedItems != null && mCheckedItems.get(originalPosition));
+        return convertView;
+    }
+
+    /**
+     * @return New item view with {@link ViewHolder} in its tag
+     */
+    static View newView(ViewGroup parent, int itemLayoutId, Typeface font) {
+        // inflater of the parent keeps current light/dark theme
+        final View view = LayoutInflater.from(parent.getContext()).inflate(itemLayoutId, parent, false);
+        final ViewHolder holder = new ViewHolder(view);
+        if (holder.text != null && font != null) {
+            // the font is the same for all rows, recycled rows keep it
+            holder.text.setTypeface(font);
+        }
+        view.setTag(holder);
+        return view;
+    }
+
+    static class ViewHolder {
+
+        final TextView text;
+        final Checkable checkable;
+        private CharSequence boundItem;
+        private CharArrayBuffer buffer;
+
+        ViewHolder(View view) {
+            text = (TextView) view.findViewById(R.id.sdl_text);
+            checkable = view instanceof Checkable ? (Checkable) view : null;
+        }
+
+        void setChecked(boolean checked) {
+            if (checkable != null) {
+                checkable.setChecked(checked);
+            }
+        }
+
+        void bind(CharSequence item) {
+            // rows rebound with the same item (e.g. after a change of the checked items) don't need a new layout
+            if (text != null && item != boundItem) {
+                text.setText(item);
+                boundItem = item;
+            }
+        }
+
+        /**
+         * Binds text of the current row of the cursor, the characters are copied to a buffer kept with the row.
+         */
+        void bind(Cursor cursor, int column) {
+            if (text == null) {
+                return;
+            }
+            if (buffer == null) {
+                buffer = new CharArrayBuffer(64);
+            }
+            cursor.copyStringToBuffer(column, buffer);
+            // the text view shows the characters of the buffer, it doesn't copy them
+            text.setText(buffer.data, 0, buffer.sizeCopied);
+            boundItem = null;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.avast.android.dialogs.util;
+
+import android.content.res.TypedArray;
+import android.graphics.Typeface;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+import android.text.Spanned;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import com.avast.android.dialogs.R;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * RecyclerView adapter for items of {@link com.avast.android.dialogs.fragment.ListDialogFragment}. Keeps checked
+ * state of the items itself, choice modes are the same as of {@link AbsListView}.
+ * <p>
+ * Items have stable ids, so when they are replaced with {@link #setItems(CharSequence[])} the checked items stay
+ * checked even if they move, and only the changed rows are rebound. The difference is computed in the background.
+ *
+ * @since 2.4.0
+ */
+public class ListItemRecyclerAdapter extends RecyclerView.Adapter<ListItemRecyclerAdapter.ItemViewHolder> {
+
+    private static final Object PAYLOAD_CHECKED = new Object();
+
+    public interface OnItemClickListener {
+
+        /**
+         * @param checked New checked state of the item, false in {@link AbsListView#CHOICE_MODE_NONE}
+         */
+        public void onItemClick(int position, boolean checked);
+    }
+
+    /**
+     * Called when the checked items change without a click, e.g. when the checked items move after an update.
+     */
+    public interface OnItemsUpdatedListener {
+
+        public void onItemsUpdated(CharSequence[] items, CheckedItemSet checkedItems);
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final int mItemLayoutId;
+    private final Typeface mFont;
+    private final int mChoiceMode;
+    private int mListSelector = -1;
+
+    private CharSequence[] mItems;
+    // the n-th occurrence of the same text keeps its id across updates, see assignIds()
+    private long[] mIds;
+    private long mNextId;
+    private CheckedItemSet mCheckedItems;
+    private OnItemClickListener mOnItemClickListener;
+    private OnItemsUpdatedListener mOnItemsUpdatedListener;
+    private int mUpdateGeneration;
+
+    /**
+     * @param font         Font of the items or null to keep the font from the item layout
+     * @param choiceMode   One of the {@link AbsListView} choice modes
+     * @param checkedItems Positions of the checked items, the adapter changes the set on clicks
+     */
+    public ListItemRecyclerAdapter(CharSequence[] items, int itemLayoutId, Typeface font, int choiceMode,
+                                   CheckedItemSet checkedItems) {
+        mItems = items != null ? items : new CharSequence[0];
+        mIds = new long[mItems.length];
+        for (int i = 0; i < mIds.length; i++) {
+            mIds[i] = mNextId++;
+        }
+        mItemLayoutId = itemLayoutId;
+        mFont = font;
+        mChoiceMode = choiceMode;
+        mCheckedItems = checkedItems != null ? checkedItems : new CheckedItemSet();
+        setHasStableIds(true);
+    }
+
+    public void setOnItemClickListener(OnItemClickListener listener) {
+        mOnItemClickListener = listener;
+    }
+
+    public void setOnItemsUpdatedListener(OnItemsUpdatedListener listener) {
+        mOnItemsUpdatedListener = listener;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.length;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mIds[position];
+    }
+
+    public CharSequence getItem(int position) {
+        return mItems[position];
+    }
+
+    public CharSequence[] getItems() {
+        return mItems;
+    }
+
+    /**
+     * @return Checked positions, replaced by a new set when the items are updated
+     */
+    public CheckedItemSet getCheckedItems() {
+        return mCheckedItems;
+    }
+
+    /**
+     * Rebinds checked state of the rows after the checked items were changed from outside, only the shown rows are
+     * bound right away.
+     */
+    public void notifyCheckedItemsChanged() {
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_CHECKED);
+    }
+
+    @NonNull
+    @Override
+    public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final View view = ListItemAdapter.newView(parent, mItemLayoutId, mFont);
+        if (view.getBackground() == null) {
+            // ListView draws the selector itself, here every row needs it
+            if (mListSelector == -1) {
+                final TypedArray a = parent.getContext().obtainStyledAttributes(new int[]{R.attr.sdlListSelector});
+                mListSelector = a.getResourceId(0, 0);
+                a.recycle();
+            }
+            view.setBackgroundResource(mListSelector);
+        }
+        final ItemViewHolder holder = new ItemViewHolder(view);
+        view.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                final int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    onItemClick(position);
+                }
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position) {
+        holder.views.bind(mItems[position]);
+        holder.views.setChecked(mCheckedItems.get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // only the checked state has changed, the text stays
+        holder.views.setChecked(mCheckedItems.get(position));
+    }
+
+    /**
+     * Replaces the items, the difference to the current ones is computed in the background and only the changed
+     * rows are updated. Checked items stay checked on their new positions, removed ones are dropped.
+     */
+    public void setItems(final CharSequence[] items) {
+        final CharSequence[] oldItems = mItems;
+        final long[] oldIds = mIds;
+        final long nextId = mNextId;
+        final CharSequence[] newItems = items != null ? items : new CharSequence[0];
+        final int generation = ++mUpdateGeneration;
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long[] newIds = new long[newItems.length];
+                final long newNextId = assignIds(oldItems, oldIds, newItems, newIds, nextId);
+                final DiffUtil.DiffResult diff = DiffUtil.calculateDiff(
+                        new ItemsDiff(oldItems, oldIds, newItems, newIds));
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a newer update is on its way, or the items the ids are based on were replaced
+                        if (generation == mUpdateGeneration && mItems == oldItems) {
+                            mNextId = newNextId;
+                            applyItems(newItems, newIds, diff);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyItems(CharSequence[] items, long[] ids, DiffUtil.DiffResult diff) {
+        final HashSet<Long> checkedIds = new HashSet<>();
+        for (int i = mCheckedItems.nextChecked(0); i >= 0 && i < mIds.length; i = mCheckedItems.nextChecked(i + 1)) {
+            checkedIds.add(mIds[i]);
+        }
+        final CheckedItemSet checkedItems = new CheckedItemSet();
+        for (int i = 0; i < ids.length; i++) {
+            if (checkedIds.contains(ids[i])) {
+                checkedItems.set(i, true);
+            }
+        }
+        mItems = items;
+        mIds = ids;
+        mCheckedItems = checkedItems;
+        diff.dispatchUpdatesTo(this);
+        if (mOnItemsUpdatedListener != null) {
+            mOnItemsUpdatedListener.onItemsUpdated(mItems, mCheckedItems);
+        }
+    }
+
+    private void onItemClick(int position) {
+        boolean checked = false;
+        if (mChoiceMode == AbsListView.CHOICE_MODE_MULTIPLE) {
+            checked = !mCheckedItems.get(position);
+            mCheckedItems.set(position, checked);
+            notifyItemChanged(position, PAYLOAD_CHECKED);
+        } else if (mChoiceMode == AbsListView.CHOICE_MODE_SINGLE) {
+            checked = true;
+            for (int i = mCheckedItems.nextChecked(0); i >= 0; i = mCheckedItems.nextChecked(i + 1)) {
+                if (i != position) {
+                    notifyItemChanged(i, PAYLOAD_CHECKED);
+                }
+            }
+            mCheckedItems.clear();
+            mCheckedItems.set(position, true);
+            notifyItemChanged(position, PAYLOAD_CHECKED);
+        }
+        if (mOnItemClickListener != null) {
+            mOnItemClickListener.onItemClick(position, checked);
+        }
+    }
+
+    /**
+     * Items keep the ids of the same texts at the same occurrence in the old items, the others get new ids. Only
+     * the current items are looked up, so ids of removed items are forgotten.
+     *
+     * @param newIds Filled with the ids of the new items
+     * @return The next unused id
+     */
+    private static long assignIds(CharSequence[] oldItems, long[] oldIds, CharSequence[] newItems, long[] newIds,
+                                  long nextId) {
+        final String[] oldKeys = getKeys(oldItems);
+        final HashMap<String, Long> idsByKey = new HashMap<>(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            idsByKey.put(oldKeys[i], oldIds[i]);
+        }
+        final String[] newKeys = getKeys(newItems);
+        for (int i = 0; i < newKeys.length; i++) {
+            final Long id = idsByKey.get(newKeys[i]);
+            newIds[i] = id != null ? id : nextId++;
+        }
+        return nextId;
+    }
+
+    /**
+     * @return Texts of the items, the n-th occurrence of the same text is told apart by a suffix
+     */
+    private static String[] getKeys(CharSequence[] items) {
+        final String[] keys = new String[items.length];
+        final HashMap<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            final String text = String.valueOf(items[i]);
+            final Integer occurrence = occurrences.get(text);
+            final int n = occurrence != null ? occurrence + 1 : 0;
+            occurrences.put(text, n);
+            keys[i] = n == 0 ? text : text + '\u0000' + n;
+        }
+        return keys;
+    }
+
+    public static class ItemViewHolder extends RecyclerView.ViewHolder {
+
+        final ListItemAdapter.ViewHolder views;
+
+        ItemViewHolder(View itemView) {
+            super(itemView);
+            views = (ListItemAdapter.ViewHolder) itemView.getTag();
+        }
+    }
+
+    /**
+     * Items with the same ids are the same items, see {@link #assignIds}.
+     */
+    private static class ItemsDiff extends DiffUtil.Callback {
+
+        private final CharSequence[] mOldItems;
+        private final long[] mOldIds;
+        private final CharSequence[] mNewItems;
+        private final long[] mNewIds;
+
+        ItemsDiff(CharSequence[] oldItems, long[] oldIds, CharSequence[] newItems, long[] newIds) {
+            mOldItems = oldItems;
+            mOldIds = oldIds;
+            mNewItems = newItems;
+            mNewIds = newIds;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldItems.length;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewItems.length;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldIds[oldItemPosition] == mNewIds[newItemPosition];
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            // same text, only styled texts may differ in their spans
+            final CharSequence newItem = mNewItems[newItemPosition];
+            return mOldItems[oldItemPosition] == newItem || !(newItem instanceof Spanned);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.avast.android.dialogs.util;
+
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import com.avast.android.dialogs.iface.IItemSource;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapter for items of {@link com.avast.android.dialogs.fragment.ListDialogFragment} provided by an
+ * {@link IItemSource}. Pages of items are loaded in the background when the list is scrolled to them, only a limited
+ * number of pages around the shown items is kept in memory.
+ *
+ * @since 2.4.0
+ */
+public class PagedItemAdapter extends BaseAdapter {
+
+    private static final String TAG = "PagedItemAdapter";
+    public static final int PAGE_SIZE = 50;
+    private static final int MAX_PAGES = 20;
+
+    // sources are called one at a time, see IItemSource
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    static {
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public interface OnItemsLoadedListener {
+
+        /**
+         * @param items Items in the order of the requested positions, null for items which couldn't be loaded
+         */
+        public void onItemsLoaded(CharSequence[] items);
+    }
+
+    private final IItemSource mSource;
+    private final int mItemLayoutId;
+    private final Typeface mFont;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final SparseArray<Page> mPages = new SparseArray<>();
+    private final SparseBooleanArray mLoading = new SparseBooleanArray();
+    private CheckedItemSet mCheckedItems;
+    private int mCount;
+    private volatile boolean mReleased;
+
+    /**
+     * @param font Font of the items or null to keep the font from the item layout
+     */
+    public PagedItemAdapter(IItemSource source, int itemLayoutId, Typeface font) {
+        mSource = source;
+        mItemLayoutId = itemLayoutId;
+        mFont = font;
+        loadCount();
+    }
+
+    /**
+     * @param checkedItems Checked items, rows are checked according to it when bound
+     */
+    public void setCheckedItems(CheckedItemSet checkedItems) {
+        mCheckedItems = checkedItems;
+    }
+
+    /**
+     * Executor which calls the item sources, it can be used for other work with the source which has to be kept in
+     * order with loading of the pages.
+     */
+    public static Executor getExecutor() {
+        return sExecutor;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return The item or null if its page is not loaded yet
+     */
+    @Override
+    public CharSequence getItem(int position) {
+        final Page page = mPages.get(position / PAGE_SIZE);
+        final int index = position % PAGE_SIZE;
+        return page != null && index < page.size ? page.titles[index] : null;
+    }
+
+    /**
+     * @return Key of the item from the source or position of the item if its page is not loaded yet
+     */
+    @Override
+    public long getItemId(int position) {
+        final Page page = mPages.get(position / PAGE_SIZE);
+        final int index = position % PAGE_SIZE;
+        return page != null && index < page.size ? page.ids[index] : position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            convertView = ListItemAdapter.newView(parent, mItemLayoutId, mFont);
+        }
+        final int pageIndex = position / PAGE_SIZE;
+        if (mPages.get(pageIndex) == null) {
+            requestPage(pageIndex);
+        }
+        // empty row until the page is loaded
+        final ListItemAdapter.ViewHolder holder = (ListItemAdapter.ViewHolder) convertView.getTag();
+        holder.bind(getItem(position));
+        holder.setChecked(mCheckedItems != null && mCheckedItems.get(position));
+        return convertView;
+    }
+
+    /**
+     * Gets items at the given positions, loading their pages if needed. Listener is called on the main thread,
+     * immediately if all the items are loaded.
+     */
+    public void loadItems(final int[] positions, final OnItemsLoadedListener listener) {
+        final CharSequence[] items = new CharSequence[positions.length];
+        final SparseBooleanArray missingPages = new SparseBooleanArray();
+        for (int i = 0; i < positions.length; i++) {
+            final int position = positions[i];
+            if (mPages.get(position / PAGE_SIZE) != null) {
+                items[i] = getItem(position);
+            } else {
+                missingPages.put(position / PAGE_SIZE, true);
+            }
+        }
+        if (missingPages.size() == 0) {
+            listener.onItemsLoaded(items);
+            return;
+        }
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SparseArray<Page> pages = new SparseArray<>(missingPages.size());
+                for (int i = 0; i < missingPages.size(); i++) {
+                    pages.put(missingPages.keyAt(i), loadPage(missingPages.keyAt(i)));
+                }
+                for (int i = 0; i < positions.length; i++) {
+                    final Page page = pages.get(positions[i] / PAGE_SIZE);
+                    final int index = positions[i] % PAGE_SIZE;
+                    if (page != null && index < page.size) {
+                        items[i] = page.titles[index];
+                    }
+                }
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mReleased) {
+                            listener.onItemsLoaded(items);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Stops loading, results of pending loads are dropped. Call when the dialog is gone.
+     */
+    public void release() {
+        mReleased = true;
+        mPages.clear();
+    }
+
+    private void loadCount() {
+        mLoading.put(0, true);
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mReleased) {
+                    return;
+                }
+                int count = 0;
+                try {
+                    count = mSource.getCount();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Can't load count of items", e);
+                }
+                // the first page is needed right away
+                final int loadedCount = count;
+                final Page page = count > 0 ? loadPage(0) : null;
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLoading.delete(0);
+                        if (mReleased) {
+                            return;
+                        }
+                        mCount = loadedCount;
+                        if (page != null) {
+                            putPage(0, page);
+                        }
+                        notifyDataSetChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    private void requestPage(final int pageIndex) {
+        if (mLoading.get(pageIndex)) {
+            return;
+        }
+        mLoading.put(pageIndex, true);
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mReleased) {
+                    return;
+                }
+                final Page page = loadPage(pageIndex);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLoading.delete(pageIndex);
+                        if (mReleased) {
+                            return;
+                        }
+                        putPage(pageIndex, page);
+                        notifyDataSetChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Runs in the background.
+     *
+     * @return The page, empty if it can't be loaded so it's not requested again and again
+     */
+    private Page loadPage(int pageIndex) {
+        final Page page = new Page();
+        try {
+            page.size = Math.max(0, mSource.loadPage(pageIndex * PAGE_SIZE, page.titles, page.ids));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Can't load page " + pageIndex, e);
+        }
+        return page;
+    }
+
+    private void putPage(int pageIndex, Page page) {
+        if (mPages.size() >= MAX_PAGES) {
+            // drop the page furthest from the loaded one, the list is scrolled away from it
+            int furthest = 0;
+            for (int i = 1; i < mPages.size(); i++) {
+                if (Math.abs(mPages.keyAt(i) - pageIndex) > Math.abs(mPages.keyAt(furthest) - pageIndex)) {
+                    furthest = i;
+                }
+            }
+            mPages.removeAt(furthest);
+        }
+        mPages.put(pageIndex, page);
+    }
+
+    private static class Page {
+
+        final CharSequence[] titles = new CharSequence[PAGE_SIZE];
+        final long[] ids = new long[PAGE_SIZE];
+        int size;
+    }
+}
@@ -0,0 +1,156 @@
+package com.avast.android.dialogs.util;
+
+import android.graphics.Typeface;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.widget.SectionIndexer;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * {@link ListItemAdapter} with sections by the first letters of alphabetically sorted items, for fast scroll and
+ * section headers of long lists.
+ * <p>
+ * Sections are found in the background whenever the items are set, the list has no sections until then. Letters are
+ * compared by collation keys of the current locale, so e.g. "a" and "Á" are in the same section in English but not
+ * where they are different letters. The key of each letter is computed once. Section of a position is found by
+ * a binary search over the starts of the sections.
+ *
+ * @since 2.4.0
+ */
+public class SectionedItemAdapter extends ListItemAdapter implements SectionIndexer {
+
+    private static final String[] NO_SECTIONS = new String[0];
+    private static final String OTHER_SECTION = "#";
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private String[] mSections = NO_SECTIONS;
+    // original positions of the first items of the sections, sorted
+    private int[] mSectionStarts = new int[0];
+    private int mGeneration;
+
+    /**
+     * @param font Font of the items or null to keep the font from the item layout
+     */
+    public SectionedItemAdapter(CharSequence[] items, int itemLayoutId, Typeface font) {
+        super(items, itemLayoutId, font);
+        buildSections(items);
+    }
+
+    @Override
+    public void setItems(CharSequence[] items) {
+        super.setItems(items);
+        buildSections(items);
+    }
+
+    /**
+     * Drops the sections which are being found. Call when the dialog is gone.
+     */
+    @MainThread
+    public void release() {
+        mGeneration++;
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
+    @Override
+    public Object[] getSections() {
+        return mSections;
+    }
+
+    @Override
+    public int getPositionForSection(int sectionIndex) {
+        if (mSectionStarts.length == 0) {
+            return 0;
+        }
+        final int section = Math.max(0, Math.min(sectionIndex, mSectionStarts.length - 1));
+        return Math.min(getFilteredPositionFrom(mSectionStarts[section]), Math.max(0, getCount() - 1));
+    }
+
+    @Override
+    public int getSectionForPosition(int position) {
+        if (mSectionStarts.length == 0 || position < 0 || position >= getCount() || isLoading()) {
+            return 0;
+        }
+        final int found = Arrays.binarySearch(mSectionStarts, getOriginalPosition(position));
+        // otherwise the position is inside the section starting before it
+        return found >= 0 ? found : Math.max(0, -found - 2);
+    }
+
+    @MainThread
+    private void buildSections(final CharSequence[] items) {
+        final int generation = ++mGeneration;
+        mSections = NO_SECTIONS;
+        mSectionStarts = new int[0];
+        if (items == null || items.length == 0) {
+            return;
+        }
+        // the collator is created for the locale of the time the items are set
+        final Locale locale = Locale.getDefault();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Collator collator = Collator.getInstance(locale);
+                // case and accents are ignored unless they make a different letter in the locale
+                collator.setStrength(Collator.PRIMARY);
+                final HashMap<String, CollationKey> keys = new HashMap<>();
+                final ArrayList<String> sections = new ArrayList<>();
+                int[] starts = new int[32];
+                CollationKey sectionKey = null;
+                for (int i = 0; i < items.length; i++) {
+                    final String letter = getLetter(items[i], locale);
+                    CollationKey key = keys.get(letter);
+                    if (key == null) {
+                        key = collator.getCollationKey(letter);
+                        keys.put(letter, key);
+                    }
+                    if (sectionKey == null || key.compareTo(sectionKey) != 0) {
+                        if (sections.size() == starts.length) {
+                            starts = Arrays.copyOf(starts, starts.length * 2);
+                        }
+                        starts[sections.size()] = i;
+                        sections.add(letter);
+                        sectionKey = key;
+                    }
+                }
+                final String[] resultSections = sections.toArray(new String[sections.size()]);
+                final int[] resultStarts = Arrays.copyOf(starts, resultSections.length);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            mSections = resultSections;
+                            mSectionStarts = resultStarts;
+                            // the fast scroller reads the sections again
+                            notifyDataSetChanged();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return Upper case first letter or digit of the item, {@link #OTHER_SECTION} if it starts with something else
+     */
+    private static String getLetter(CharSequence item, Locale locale) {
+        if (item != null) {
+            for (int i = 0, n = item.length(); i < n; i++) {
+                final char c = item.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    return String.valueOf(c).toUpperCase(locale);
+                }
+                if (!Character.isWhitespace(c)) {
+                    break;
+                }
+            }
+        }
+        return OTHER_SECTION;
+    }
+}
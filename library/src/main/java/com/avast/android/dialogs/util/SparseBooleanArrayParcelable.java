@@ -4,6 +4,11 @@ import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.SparseBooleanArray;
 
+/**
+ * @deprecated Not used by the library anymore, checked items of list dialogs are kept by {@link CheckedItemSet}.
+ * Will be removed in a future version.
+ */
+@Deprecated
 public class SparseBooleanArrayParcelable extends SparseBooleanArray implements Parcelable {
     public static Parcelable.Creator<SparseBooleanArrayParcelable> CREATOR = new Parcelable.Creator<SparseBooleanArrayParcelable>() {
         @Override
@@ -0,0 +1,270 @@
+package com.avast.android.dialogs.util;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.ScrollView;
+
+import com.avast.android.dialogs.R;
+
+/**
+ * Root layout of the dialog. Places header (title), body (message, custom view, list) and footer (buttons)
+ * children below each other in a single measure pass. Body gets whatever height is left after header and footer
+ * are measured, footer sticks to the bottom when the dialog has a fixed height.
+ * <p>
+ * Divider above the buttons is drawn by the layout itself if the body content doesn't fit and has to scroll,
+ * otherwise a small space is left below the buttons. Whether the content scrolls is checked once per layout pass
+ * with {@link View#canScrollVertically(int)}, so the divider follows content changes (e.g. items loaded into the
+ * list) without walking the view tree. The divider takes its height from the space below the buttons, so the size
+ * of the dialog doesn't depend on it and showing or hiding it only redraws it.
+ */
+public class StyledDialogLayout extends ViewGroup {
+
+    public static final int ROLE_HEADER = 0;
+    public static final int ROLE_BODY = 1;
+    public static final int ROLE_FOOTER = 2;
+
+    private final Paint mDividerPaint = new Paint();
+    private final int mDividerHeight;
+    // space between the body and the bottom edge besides the footer, it holds the divider and the space below buttons
+    private final int mDecorationHeight;
+
+    private boolean mScrollable;
+    private boolean mHasFooter;
+    private int mFooterTop;
+
+    public StyledDialogLayout(Context context) {
+        this(context, null);
+    }
+
+    public StyledDialogLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        final TypedArray a = context.obtainStyledAttributes(new int[]{R.attr.sdlDividerColor});
+        mDividerPaint.setColor(a.getColor(0, 0));
+        a.recycle();
+        mDividerHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1,
+                getResources().getDisplayMetrics());
+        mDecorationHeight = Math.max(mDividerHeight, getResources().getDimensionPixelSize(R.dimen.grid_2));
+        setWillNotDraw(false);
+    }
+
+    /**
+     * @return True if the body of the dialog doesn't fit and the divider above buttons is shown
+     */
+    public boolean isContentScrollable() {
+        return mScrollable;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        final int verticalPadding = getPaddingTop() + getPaddingBottom();
+        final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        final int count = getChildCount();
+
+        int used = 0;
+        int maxWidth = 0;
+        int childState = 0;
+        mHasFooter = false;
+
+        // header and footer first, body gets the rest
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (child.getVisibility() == GONE || lp.role == ROLE_BODY) {
+                continue;
+            }
+            measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, used);
+            used += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+            maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+            childState = combineMeasuredStates(childState, child.getMeasuredState());
+            mHasFooter |= lp.role == ROLE_FOOTER;
+        }
+
+        // reserved whether the divider is shown or not, see onLayout()
+        if (mHasFooter) {
+            used += mDecorationHeight;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (child.getVisibility() == GONE || lp.role != ROLE_BODY) {
+                continue;
+            }
+            measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, used);
+            used += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+            maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+            childState = combineMeasuredStates(childState, child.getMeasuredState());
+        }
+
+        final int width = resolveSizeAndState(Math.max(maxWidth + horizontalPadding, getSuggestedMinimumWidth()),
+                widthMeasureSpec, childState);
+        final int height = resolveSizeAndState(Math.max(used + verticalPadding, getSuggestedMinimumHeight()),
+                heightMeasureSpec, childState << MEASURED_HEIGHT_STATE_SHIFT);
+        setMeasuredDimension(width, height);
+
+        if (widthMode != MeasureSpec.EXACTLY) {
+            // same as in LinearLayout, match_parent children narrower than the resolved width need to be stretched
+            final int resolvedWidth = getMeasuredWidth() - horizontalPadding;
+            for (int i = 0; i < count; i++) {
+                final View child = getChildAt(i);
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                final int childWidth = resolvedWidth - lp.leftMargin - lp.rightMargin;
+                if (child.getVisibility() != GONE && lp.width == LayoutParams.MATCH_PARENT
+                        && child.getMeasuredWidth() != childWidth) {
+                    child.measure(MeasureSpec.makeMeasureSpec(childWidth, MeasureSpec.EXACTLY),
+                            MeasureSpec.makeMeasureSpec(child.getMeasuredHeight(), MeasureSpec.EXACTLY));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final int count = getChildCount();
+        final int left = getPaddingLeft();
+        int top = getPaddingTop();
+        boolean scrollable = false;
+
+        int footerHeight = 0;
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            if (lp.role == ROLE_FOOTER) {
+                footerHeight += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+                continue;
+            }
+            top = layoutChild(child, lp, left, top);
+            if (lp.role == ROLE_BODY) {
+                scrollable |= canScroll(child);
+            }
+        }
+
+        if (mHasFooter) {
+            // footer sticks to the bottom if the dialog is taller than its content (e.g. full height dialog), the
+            // divider is above it and the rest of the decoration below it
+            final int footerTop = (b - t) - getPaddingBottom() - (mDecorationHeight - mDividerHeight) - footerHeight;
+            top = Math.max(top + mDividerHeight, footerTop);
+            mFooterTop = top;
+            for (int i = 0; i < count; i++) {
+                final View child = getChildAt(i);
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                if (child.getVisibility() != GONE && lp.role == ROLE_FOOTER) {
+                    top = layoutChild(child, lp, left, top);
+                }
+            }
+        }
+
+        if (scrollable != mScrollable) {
+            // the content has changed, the place of the divider is the same either way
+            mScrollable = scrollable;
+            if (mHasFooter) {
+                invalidate(getPaddingLeft(), mFooterTop - mDividerHeight, getWidth() - getPaddingRight(), mFooterTop);
+            }
+        }
+    }
+
+    private static int layoutChild(View child, LayoutParams lp, int left, int top) {
+        final int childLeft = left + lp.leftMargin;
+        final int childTop = top + lp.topMargin;
+        child.layout(childLeft, childTop, childLeft + child.getMeasuredWidth(), childTop + child.getMeasuredHeight());
+        return childTop + child.getMeasuredHeight() + lp.bottomMargin;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mHasFooter && mScrollable) {
+            canvas.drawRect(getPaddingLeft(), mFooterTop - mDividerHeight, getWidth() - getPaddingRight(), mFooterTop,
+                    mDividerPaint);
+        }
+    }
+
+    /**
+     * @return True if the laid out body child can scroll. For the custom view frame its single child is checked.
+     */
+    private static boolean canScroll(View view) {
+        if (view.canScrollVertically(1) || view.canScrollVertically(-1)) {
+            return true;
+        }
+        if (view instanceof ViewGroup && !(view instanceof AbsListView) && !(view instanceof ScrollView)
+                && ((ViewGroup) view).getChildCount() == 1) {
+            final View child = ((ViewGroup) view).getChildAt(0);
+            return child.canScrollVertically(1) || child.canScrollVertically(-1);
+        }
+        return false;
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new LayoutParams((MarginLayoutParams) p);
+        }
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    public static class LayoutParams extends MarginLayoutParams {
+
+        /**
+         * One of {@link #ROLE_HEADER}, {@link #ROLE_BODY} or {@link #ROLE_FOOTER}
+         */
+        public int role = ROLE_BODY;
+
+        public LayoutParams(Context c, AttributeSet attrs) {
+            super(c, attrs);
+            final TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.StyledDialogLayout_Layout);
+            role = a.getInt(R.styleable.StyledDialogLayout_Layout_layout_sdlRole, ROLE_BODY);
+            a.recycle();
+        }
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(int width, int height, int role) {
+            super(width, height);
+            this.role = role;
+        }
+
+        public LayoutParams(MarginLayoutParams source) {
+            super(source);
+            if (source instanceof LayoutParams) {
+                role = ((LayoutParams) source).role;
+            }
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.avast.android.dialogs.util;
+
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.v4.util.LongSparseArray;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import com.avast.android.dialogs.R;
+import com.avast.android.dialogs.iface.ITreeItemSource;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapter for one level of a tree shown by {@link com.avast.android.dialogs.fragment.ListDialogFragment}. Children
+ * of a node are loaded from an {@link ITreeItemSource} in the background the first time the node is opened, a
+ * progress row is shown until then. Loaded levels are kept, so going back and forth is immediate.
+ *
+ * @since 2.4.0
+ */
+public class TreeItemAdapter extends BaseAdapter {
+
+    private static final String TAG = "TreeItemAdapter";
+
+    private static final int TYPE_LEAF = 0;
+    private static final int TYPE_BRANCH = 1;
+    private static final int TYPE_PROGRESS = 2;
+
+    // sources are called one at a time, see ITreeItemSource
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    static {
+        sExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private final ITreeItemSource mSource;
+    private final int mItemLayoutId;
+    private final Typeface mFont;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final LongSparseArray<TreeLevel> mLevels = new LongSparseArray<>();
+    private final LongSparseArray<Boolean> mLoading = new LongSparseArray<>();
+    private CheckedIdSet mCheckedIds;
+    private long mParentId = ITreeItemSource.ROOT;
+    // shown level, null while it's loading
+    private TreeLevel mLevel;
+    private volatile boolean mReleased;
+
+    /**
+     * @param itemLayoutId Layout of the nodes without children
+     * @param font         Font of the items or null to keep the font from the item layout
+     */
+    public TreeItemAdapter(ITreeItemSource source, int itemLayoutId, Typeface font) {
+        mSource = source;
+        mItemLayoutId = itemLayoutId;
+        mFont = font;
+    }
+
+    /**
+     * @param checkedIds Checked nodes, rows are checked according to it when bound
+     */
+    public void setCheckedIds(CheckedIdSet checkedIds) {
+        mCheckedIds = checkedIds;
+    }
+
+    /**
+     * Shows children of the node, loads them first if they are not loaded yet.
+     */
+    @MainThread
+    public void showLevel(long parentId) {
+        mParentId = parentId;
+        mLevel = mLevels.get(parentId);
+        if (mLevel == null) {
+            preloadLevel(parentId);
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Starts loading children of the node which is about to be opened, e.g. while the list is animated.
+     */
+    @MainThread
+    public void preloadLevel(final long parentId) {
+        if (mLevels.get(parentId) != null || mLoading.get(parentId) != null) {
+            return;
+        }
+        mLoading.put(parentId, Boolean.TRUE);
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mReleased) {
+                    return;
+                }
+                final TreeLevel level = new TreeLevel();
+                try {
+                    mSource.loadChildren(parentId, level);
+                } catch (RuntimeException e) {
+                    // the node is shown empty rather than loading forever
+                    Log.w(TAG, "Can't load children of " + parentId, e);
+                }
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLoading.remove(parentId);
+                        if (mReleased) {
+                            return;
+                        }
+                        mLevels.put(parentId, level);
+                        if (parentId == mParentId) {
+                            mLevel = level;
+                            notifyDataSetChanged();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return True if the progress row is shown because the shown level isn't loaded yet
+     */
+    public boolean isLoading() {
+        return mLevel == null;
+    }
+
+    public boolean hasChildren(int position) {
+        return mLevel != null && mLevel.hasChildren(position);
+    }
+
+    /**
+     * @return Title of the node from the loaded levels or null
+     */
+    public CharSequence findTitle(long id) {
+        for (int i = 0, n = mLevels.size(); i < n; i++) {
+            final TreeLevel level = mLevels.valueAt(i);
+            final int position = level.indexOf(id);
+            if (position >= 0) {
+                return level.getTitle(position);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops loading, results of pending loads are dropped. Call when the dialog is gone.
+     */
+    @MainThread
+    public void release() {
+        mReleased = true;
+        mLevels.clear();
+    }
+
+    @Override
+    public int getCount() {
+        return mLevel != null ? mLevel.size() : 1;
+    }
+
+    @Override
+    public CharSequence getItem(int position) {
+        return mLevel != null ? mLevel.getTitle(position) : null;
+    }
+
+    /**
+     * @return Id of the node
+     */
+    @Override
+    public long getItemId(int position) {
+        return mLevel != null ? mLevel.getId(position) : ITreeItemSource.ROOT;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return 3;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (mLevel == null) {
+            return TYPE_PROGRESS;
+        }
+        return mLevel.hasChildren(position) ? TYPE_BRANCH : TYPE_LEAF;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return mLevel != null;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return mLevel != null;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        final int type = getItemViewType(position);
+        if (type == TYPE_PROGRESS) {
+            return convertView != null ? convertView
+                : LayoutInflater.from(parent.getContext()).inflate(R.layout.sdl_list_progress, parent, false);
+        }
+        if (convertView == null) {
+            convertView = ListItemAdapter.newView(parent,
+                type == TYPE_BRANCH ? R.layout.sdl_list_item_branch : mItemLayoutId, mFont);
+        }
+        final ListItemAdapter.ViewHolder holder = (ListItemAdapter.ViewHolder) convertView.getTag();
+        holder.bind(mLevel.getTitle(position));
+        holder.setChecked(mCheckedIds != null && mCheckedIds.get(mLevel.getId(position)));
+        return convertView;
+    }
+}
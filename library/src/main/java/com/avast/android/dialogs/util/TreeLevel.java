@@ -0,0 +1,63 @@
+package com.avast.android.dialogs.util;
+
+import java.util.Arrays;
+
+/**
+ * Child nodes of a node of a tree list dialog, filled by {@link com.avast.android.dialogs.iface.ITreeItemSource}.
+ * Nodes are kept in parallel arrays.
+ *
+ * @since 2.4.0
+ */
+public final class TreeLevel {
+
+    private long[] mIds = new long[16];
+    private CharSequence[] mTitles = new CharSequence[16];
+    private boolean[] mBranches = new boolean[16];
+    private int mSize;
+
+    /**
+     * @param id          Id of the node, unique in the whole tree and not {@link
+     *                    com.avast.android.dialogs.iface.ITreeItemSource#ROOT}
+     * @param hasChildren True if the node is opened on click instead of being selected
+     */
+    public void add(long id, CharSequence title, boolean hasChildren) {
+        if (mSize == mIds.length) {
+            final int capacity = mSize * 2;
+            mIds = Arrays.copyOf(mIds, capacity);
+            mTitles = Arrays.copyOf(mTitles, capacity);
+            mBranches = Arrays.copyOf(mBranches, capacity);
+        }
+        mIds[mSize] = id;
+        mTitles[mSize] = title;
+        mBranches[mSize] = hasChildren;
+        mSize++;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public long getId(int position) {
+        return mIds[position];
+    }
+
+    public CharSequence getTitle(int position) {
+        return mTitles[position];
+    }
+
+    public boolean hasChildren(int position) {
+        return mBranches[position];
+    }
+
+    /**
+     * @return Position of the node or -1
+     */
+    public int indexOf(long id) {
+        for (int i = 0; i < mSize; i++) {
+            if (mIds[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
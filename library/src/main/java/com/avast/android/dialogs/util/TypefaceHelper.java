@@ -1,8 +1,18 @@
 package com.avast.android.dialogs.util;
 
 import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
 import android.graphics.Typeface;
-import android.support.v4.util.SimpleArrayMap;
+import android.os.AsyncTask;
+import android.support.annotation.FontRes;
+import android.support.v4.content.res.ResourcesCompat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
     Taken from:
@@ -25,17 +35,131 @@ import android.support.v4.util.SimpleArrayMap;
 */
 public class TypefaceHelper {
 
-    private static final SimpleArrayMap<String, Typeface> cache = new SimpleArrayMap<>();
+    // fonts being loaded or already loaded, reading doesn't lock
+    private static final ConcurrentHashMap<String, FutureTask<Typeface>> cache = new ConcurrentHashMap<>();
+    private static final AtomicLong sHits = new AtomicLong();
+    private static final AtomicLong sMisses = new AtomicLong();
+    private static final AtomicLong sWaits = new AtomicLong();
 
+    /**
+     * @param name Name of the font file in {@code assets/fonts} without the {@code .ttf} extension
+     */
     public static Typeface get(Context c, String name) {
-        synchronized (cache) {
-            if (!cache.containsKey(name)) {
-                Typeface t = Typeface.createFromAsset(
-                        c.getAssets(), String.format("fonts/%s.ttf", name));
-                cache.put(name, t);
-                return t;
+        FutureTask<Typeface> task = cache.get(name);
+        if (task == null) {
+            final FutureTask<Typeface> newTask = createTask(c, name);
+            task = cache.putIfAbsent(name, newTask);
+            if (task == null) {
+                // loaded on this thread
+                sMisses.incrementAndGet();
+                task = newTask;
+                task.run();
+            } else {
+                sWaits.incrementAndGet();
+            }
+        } else if (task.isDone()) {
+            sHits.incrementAndGet();
+        } else {
+            // being preloaded, waiting is still cheaper than loading the font again
+            sWaits.incrementAndGet();
+        }
+        return getResult(name, task);
+    }
+
+    /**
+     * Loads fonts in the background, e.g. from {@code Application.onCreate()}, so the first dialog doesn't have to
+     * read them from the APK on the main thread.
+     *
+     * @param names Names of the font files in {@code assets/fonts} without the {@code .ttf} extension
+     * @since 2.4.0
+     */
+    public static void preload(Context c, String... names) {
+        final Context appContext = c.getApplicationContext();
+        for (String name : names) {
+            final FutureTask<Typeface> task = createTask(appContext, name);
+            if (cache.putIfAbsent(name, task) == null) {
+                AsyncTask.THREAD_POOL_EXECUTOR.execute(task);
+            }
+        }
+    }
+
+    /**
+     * @return How many times a font was returned from the cache
+     * @since 2.4.0
+     */
+    public static long getHitCount() {
+        return sHits.get();
+    }
+
+    /**
+     * @return How many times a font had to be loaded by the calling thread
+     * @since 2.4.0
+     */
+    public static long getMissCount() {
+        return sMisses.get();
+    }
+
+    /**
+     * @return How many times the calling thread had to wait for a font loaded by another thread
+     * @since 2.4.0
+     */
+    public static long getWaitCount() {
+        return sWaits.get();
+    }
+
+    /**
+     * @since 2.4.0
+     */
+    public static void resetStats() {
+        sHits.set(0);
+        sMisses.set(0);
+        sWaits.set(0);
+    }
+
+    private static FutureTask<Typeface> createTask(Context c, String name) {
+        final AssetManager assets = c.getAssets();
+        final String path = "fonts/" + name + ".ttf";
+        return new FutureTask<>(new Callable<Typeface>() {
+            @Override
+            public Typeface call() {
+                return Typeface.createFromAsset(assets, path);
+            }
+        });
+    }
+
+    private static Typeface getResult(String name, FutureTask<Typeface> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            // missing font, next call tries again
+            cache.remove(name, task);
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
-            return cache.get(name);
+        }
+    }
+
+    /**
+     * Loads font from resources (e.g. {@code R.font.roboto}), loaded fonts are cached by {@link ResourcesCompat}.
+     *
+     * @return The font or null if it can't be loaded
+     * @since 2.4.0
+     */
+    public static Typeface get(Context c, @FontRes int fontRes) {
+        try {
+            return ResourcesCompat.getFont(c, fontRes);
+        } catch (Resources.NotFoundException e) {
+            return null;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.avast.android.dialogs.util;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+import android.widget.ScrollView;
+
+import com.avast.android.dialogs.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class StyledDialogLayoutTest {
+
+    private static final int WIDTH = 400;
+    private static final int HEADER_HEIGHT = 40;
+    private static final int BODY_HEIGHT = 100;
+    private static final int FOOTER_HEIGHT = 48;
+    // StyledDialogLayout > buttons > right buttons > button
+    private static final int MAX_DEPTH = 4;
+
+    private Context mContext;
+    private int mDecorationHeight;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light);
+        mContext.getTheme().applyStyle(R.style.SDL_Dialog, true);
+        mDecorationHeight = mContext.getResources().getDimensionPixelSize(R.dimen.grid_2);
+    }
+
+    @Test
+    public void measuresEachChildOnce() {
+        final CountingView header = new CountingView(mContext, HEADER_HEIGHT);
+        final CountingView body = new CountingView(mContext, BODY_HEIGHT);
+        final CountingView footer = new CountingView(mContext, FOOTER_HEIGHT);
+        final StyledDialogLayout layout = createLayout(header, body, footer);
+
+        measureAndLayout(layout, 800);
+
+        assertEquals(1, header.mMeasureCount);
+        assertEquals(1, body.mMeasureCount);
+        assertEquals(1, footer.mMeasureCount);
+        assertEquals(HEADER_HEIGHT + BODY_HEIGHT + FOOTER_HEIGHT + mDecorationHeight, layout.getMeasuredHeight());
+        assertFalse(layout.isContentScrollable());
+        assertFalse(layout.isLayoutRequested());
+    }
+
+    @Test
+    public void scrollableBodyDoesNotRequestAnotherLayout() {
+        final CountingView header = new CountingView(mContext, HEADER_HEIGHT);
+        final CountingView content = new CountingView(mContext, 2000);
+        final ScrollView body = new ScrollView(mContext);
+        body.addView(content);
+        final CountingView footer = new CountingView(mContext, FOOTER_HEIGHT);
+        final StyledDialogLayout layout = createLayout(header, body, footer);
+
+        measureAndLayout(layout, 300);
+
+        assertTrue(layout.isContentScrollable());
+        assertFalse(layout.isLayoutRequested());
+        assertEquals(1, header.mMeasureCount);
+        assertEquals(1, footer.mMeasureCount);
+        assertEquals(300, layout.getMeasuredHeight());
+        // footer stays inside the dialog with the divider above it
+        assertEquals(300 - (mDecorationHeight - dividerHeight()), footer.getBottom());
+    }
+
+    @Test
+    public void dividerDoesNotChangeSize() {
+        final CountingView header = new CountingView(mContext, HEADER_HEIGHT);
+        final CountingView content = new CountingView(mContext, BODY_HEIGHT);
+        final ScrollView body = new ScrollView(mContext);
+        body.addView(content);
+        final CountingView footer = new CountingView(mContext, FOOTER_HEIGHT);
+        final StyledDialogLayout layout = createLayout(header, body, footer);
+        body.getLayoutParams().height = BODY_HEIGHT;
+        measureAndLayout(layout, 800);
+        assertFalse(layout.isContentScrollable());
+        final int height = layout.getMeasuredHeight();
+        final int footerTop = footer.getTop();
+
+        // content grows and scrolls, the divider is drawn but nothing moves
+        content.mHeight = 2000;
+        content.requestLayout();
+        header.mMeasureCount = 0;
+        footer.mMeasureCount = 0;
+        measureAndLayout(layout, 800);
+
+        assertTrue(layout.isContentScrollable());
+        assertFalse(layout.isLayoutRequested());
+        // their space doesn't depend on the divider, so they aren't measured again
+        assertEquals(0, header.mMeasureCount);
+        assertEquals(0, footer.mMeasureCount);
+        assertEquals(height, layout.getMeasuredHeight());
+        assertEquals(footerTop, footer.getTop());
+    }
+
+    @Test
+    public void dialogHierarchyIsShallow() {
+        final ViewGroup dialog = (ViewGroup) LayoutInflater.from(mContext).inflate(R.layout.sdl_dialog, null, false);
+        // optional regions are part of the tree once they are used
+        ((ViewStub) dialog.findViewById(R.id.sdl_custom_stub)).inflate();
+        ((ViewStub) dialog.findViewById(R.id.sdl_list_stub)).inflate();
+        ((ViewStub) dialog.findViewById(R.id.sdl_buttons_stacked_stub)).inflate();
+
+        assertTrue(dialog instanceof StyledDialogLayout);
+        assertTrue("Depth " + depth(dialog), depth(dialog) <= MAX_DEPTH);
+    }
+
+    private StyledDialogLayout createLayout(View header, View body, View footer) {
+        final StyledDialogLayout layout = new StyledDialogLayout(mContext);
+        layout.addView(header, new StyledDialogLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, StyledDialogLayout.ROLE_HEADER));
+        layout.addView(body, new StyledDialogLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, StyledDialogLayout.ROLE_BODY));
+        layout.addView(footer, new StyledDialogLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, StyledDialogLayout.ROLE_FOOTER));
+        return layout;
+    }
+
+    private static void measureAndLayout(StyledDialogLayout layout, int maxHeight) {
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(maxHeight, View.MeasureSpec.AT_MOST));
+        layout.layout(0, 0, layout.getMeasuredWidth(), layout.getMeasuredHeight());
+    }
+
+    private int dividerHeight() {
+        return (int) mContext.getResources().getDisplayMetrics().density;
+    }
+
+    private static int depth(View view) {
+        int depth = 0;
+        if (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0, n = group.getChildCount(); i < n; i++) {
+                depth = Math.max(depth, depth(group.getChildAt(i)));
+            }
+        }
+        return depth + 1;
+    }
+
+    /**
+     * Fixed height view counting its measure passes.
+     */
+    private static class CountingView extends View {
+
+        int mHeight;
+        int mMeasureCount;
+
+        CountingView(Context context, int height) {
+            super(context);
+            mHeight = height;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasureCount++;
+            setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), resolveSize(mHeight, heightMeasureSpec));
+        }
+    }
+}